@@ -0,0 +1,89 @@
+package com.ethlo.chronograph.benchmark;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ethlo.chronograph.Chronograph;
+
+/**
+ * Builds pre-populated chronographs shared by the benchmarks
+ */
+final class Fixtures
+{
+    private Fixtures()
+    {
+    }
+
+    /**
+     * Create a chronograph with a task tree of the given shape, where each task has been invoked the given number of times
+     *
+     * @param name        The name of the chronograph
+     * @param depth       The depth of the task tree
+     * @param breadth     The number of children per task
+     * @param invocations The number of invocations of each leaf task
+     * @return The populated chronograph
+     */
+    static Chronograph populated(final String name, final int depth, final int breadth, final int invocations)
+    {
+        final Chronograph chronograph = Chronograph.create(name);
+        for (int i = 0; i < invocations; i++)
+        {
+            run(chronograph, "task", 1, depth, breadth);
+        }
+        return chronograph;
+    }
+
+    static List<Chronograph> populated(final int count, final int depth, final int breadth, final int invocations)
+    {
+        final List<Chronograph> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            result.add(populated("chronograph-" + i, depth, breadth, invocations));
+        }
+        return result;
+    }
+
+    static String[] taskNames(final int depth)
+    {
+        final String[] names = new String[depth];
+        for (int i = 0; i < depth; i++)
+        {
+            names[i] = "level-" + i;
+        }
+        return names;
+    }
+
+    private static void run(final Chronograph chronograph, final String prefix, final int level, final int depth, final int breadth)
+    {
+        for (int i = 0; i < breadth; i++)
+        {
+            final String taskName = prefix + "-" + i;
+            chronograph.start(taskName);
+            if (level < depth)
+            {
+                run(chronograph, taskName, level + 1, depth, breadth);
+            }
+            chronograph.stop();
+        }
+    }
+}
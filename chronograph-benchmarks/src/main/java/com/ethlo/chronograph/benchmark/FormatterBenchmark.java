@@ -0,0 +1,89 @@
+package com.ethlo.chronograph.benchmark;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ethlo.chronograph.ChronographData;
+import com.ethlo.chronograph.OutputConfig;
+import com.ethlo.chronograph.output.json.JsonChronographData;
+import com.ethlo.chronograph.output.json.JsonOutputFormatter;
+import com.ethlo.chronograph.output.table.TableOutputFormatter;
+import com.ethlo.chronograph.output.table.TableThemes;
+
+/**
+ * Cost of rendering {@link ChronographData} with the table and JSON formatters
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class FormatterBenchmark
+{
+    @Param({"10", "10000"})
+    private int invocations;
+
+    private ChronographData data;
+    private TableOutputFormatter tableOutputFormatter;
+    private JsonOutputFormatter jsonOutputFormatter;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        data = Fixtures.populated("formatter", 3, 3, invocations).getTaskData();
+
+        // A threshold close to 1 keeps the table formatter from adding overhead rows to the task tree between invocations
+        final OutputConfig outputConfig = OutputConfig.EXTENDED.overheadThreshold(0.999);
+        tableOutputFormatter = new TableOutputFormatter(TableThemes.ASCII, outputConfig);
+
+        // Only the conversion into the serializable model is measured, not a particular JSON library
+        final Function<JsonChronographData, String> serializer = json -> json.getName() + json.getTasks().size();
+        jsonOutputFormatter = new JsonOutputFormatter(outputConfig, serializer);
+    }
+
+    @Benchmark
+    public String table()
+    {
+        return tableOutputFormatter.format(data);
+    }
+
+    @Benchmark
+    public String json()
+    {
+        return jsonOutputFormatter.format(data);
+    }
+}
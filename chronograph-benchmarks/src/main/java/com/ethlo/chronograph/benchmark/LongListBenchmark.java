@@ -0,0 +1,105 @@
+package com.ethlo.chronograph.benchmark;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ethlo.chronograph.internal.util.IndexedCollectionStatistics;
+import com.ethlo.chronograph.internal.util.LongList;
+
+/**
+ * Cost of filling and sorting a {@link LongList}, and of computing statistics over it
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class LongListBenchmark
+{
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private long[] values;
+    private LongList unsorted;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        final SplittableRandom random = new SplittableRandom(1);
+        values = new long[size];
+        for (int i = 0; i < size; i++)
+        {
+            values[i] = random.nextLong(1_000, 1_000_000);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void fill()
+    {
+        unsorted = toList();
+    }
+
+    @Benchmark
+    public LongList add()
+    {
+        return toList();
+    }
+
+    @Benchmark
+    public LongList sort()
+    {
+        unsorted.sort();
+        return unsorted;
+    }
+
+    @Benchmark
+    public Long statistics()
+    {
+        final IndexedCollectionStatistics statistics = new IndexedCollectionStatistics(unsorted);
+        return statistics.getPercentile(90);
+    }
+
+    private LongList toList()
+    {
+        final LongList list = new LongList();
+        for (final long value : values)
+        {
+            list.add(value);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,73 @@
+package com.ethlo.chronograph.benchmark;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ethlo.chronograph.Chronograph;
+import com.ethlo.chronograph.ChronographData;
+
+/**
+ * Cost of merging the data of several chronographs with {@link ChronographData#merge(String, List)}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class MergeBenchmark
+{
+    @Param({"2", "16"})
+    private int chronographs;
+
+    @Param({"10", "1000"})
+    private int invocations;
+
+    private List<Chronograph> input;
+
+    @Setup(Level.Invocation)
+    public void setup()
+    {
+        // Merging currently consumes its input, so it is rebuilt for every invocation
+        input = Fixtures.populated(chronographs, 3, 3, invocations);
+    }
+
+    @Benchmark
+    public ChronographData merge()
+    {
+        return ChronographData.merge("merged", input);
+    }
+}
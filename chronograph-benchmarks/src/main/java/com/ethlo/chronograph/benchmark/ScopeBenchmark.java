@@ -0,0 +1,110 @@
+package com.ethlo.chronograph.benchmark;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.ethlo.chronograph.CaptureConfig;
+import com.ethlo.chronograph.Chronograph;
+import com.ethlo.chronograph.TaskHandle;
+import com.ethlo.chronograph.TaskScope;
+
+/**
+ * Allocation of the different ways of timing a block. Run with <code>-prof gc</code>: the scope based variants are
+ * expected to report a <code>gc.alloc.rate.norm</code> of zero, while a capturing lambda allocates unless escape
+ * analysis removes it. Histogram storage is used so that storing the samples does not allocate either.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ScopeBenchmark
+{
+    private Chronograph chronograph;
+    private TaskHandle outer;
+    private TaskHandle inner;
+    private int input = 42;
+
+    @Setup(Level.Iteration)
+    public void createChronograph()
+    {
+        chronograph = Chronograph.create(CaptureConfig.histogram(0.01));
+        outer = chronograph.task("outer");
+        inner = chronograph.task("inner");
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeChronograph()
+    {
+        chronograph.close();
+    }
+
+    @Benchmark
+    public void scope(final Blackhole blackhole)
+    {
+        try (TaskScope scope = chronograph.scope("outer"))
+        {
+            blackhole.consume(input);
+        }
+    }
+
+    @Benchmark
+    public void nestedScopes(final Blackhole blackhole)
+    {
+        try (TaskScope outerScope = outer.scope())
+        {
+            try (TaskScope innerScope = inner.scope())
+            {
+                blackhole.consume(input);
+            }
+        }
+    }
+
+    @Benchmark
+    public void capturingLambda(final Blackhole blackhole)
+    {
+        chronograph.time("outer", () -> blackhole.consume(input));
+    }
+
+    @Benchmark
+    public void startStop(final Blackhole blackhole)
+    {
+        outer.start();
+        blackhole.consume(input);
+        outer.stop();
+    }
+}
@@ -0,0 +1,124 @@
+package com.ethlo.chronograph.benchmark;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ethlo.chronograph.Chronograph;
+import com.ethlo.chronograph.TaskHandle;
+
+/**
+ * Cost of a matched set of {@link Chronograph#start(String)} and {@link Chronograph#stop()} calls at a given nesting depth,
+ * by name and through {@link TaskHandle}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class StartStopBenchmark
+{
+    @Param({"1", "4", "16"})
+    private int depth;
+
+    private String[] names;
+    private Chronograph chronograph;
+    private TaskHandle[] handles;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        names = Fixtures.taskNames(depth);
+    }
+
+    @Setup(Level.Iteration)
+    public void createChronograph()
+    {
+        chronograph = Chronograph.create();
+        handles = new TaskHandle[names.length];
+        for (int i = 0; i < names.length; i++)
+        {
+            handles[i] = chronograph.task(names[i]);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeChronograph()
+    {
+        chronograph.close();
+    }
+
+    @Benchmark
+    public boolean startStop()
+    {
+        for (final String name : names)
+        {
+            chronograph.start(name);
+        }
+        boolean stopped = true;
+        for (int i = 0; i < names.length; i++)
+        {
+            stopped &= chronograph.stop();
+        }
+        return stopped;
+    }
+
+    @Benchmark
+    public boolean startStopHandles()
+    {
+        for (final TaskHandle handle : handles)
+        {
+            handle.start();
+        }
+        boolean stopped = true;
+        for (int i = handles.length - 1; i >= 0; i--)
+        {
+            stopped &= handles[i].stop();
+        }
+        return stopped;
+    }
+
+    @Benchmark
+    public long nanoTimeBaseline()
+    {
+        long sum = 0;
+        for (int i = 0; i < names.length * 2; i++)
+        {
+            sum += System.nanoTime();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,109 @@
+package com.ethlo.chronograph.benchmark;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.ethlo.chronograph.Chronograph;
+
+/**
+ * Cost of the lambda based <code>time(...)</code> overloads, including any capturing or boxing they cause
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class TimeBenchmark
+{
+    private static final Function<Integer, String> TO_STRING = String::valueOf;
+    private static final IntUnaryOperator INCREMENT = i -> i + 1;
+
+    private Chronograph chronograph;
+    private int input = 42;
+    private String text = "42";
+    private long value = 42L;
+
+    @Setup(Level.Iteration)
+    public void createChronograph()
+    {
+        chronograph = Chronograph.create();
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeChronograph()
+    {
+        chronograph.close();
+    }
+
+    @Benchmark
+    public void runnable(final Blackhole blackhole)
+    {
+        chronograph.time("runnable", () -> blackhole.consume(input));
+    }
+
+    @Benchmark
+    public String supplier()
+    {
+        return chronograph.time("supplier", () -> text);
+    }
+
+    @Benchmark
+    public String function()
+    {
+        return chronograph.time("function", TO_STRING, input);
+    }
+
+    @Benchmark
+    public int intUnaryOperator()
+    {
+        return chronograph.time("intUnaryOperator", INCREMENT, input);
+    }
+
+    @Benchmark
+    public long longSupplier()
+    {
+        return chronograph.time("longSupplier", () -> value);
+    }
+
+    @Benchmark
+    public int nested()
+    {
+        return chronograph.time("outer", () -> chronograph.time("inner", INCREMENT, input));
+    }
+}
@@ -0,0 +1,198 @@
+package com.ethlo.chronograph;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * Estimate of the cost of the instrumentation on the running JVM, used to compensate measurements of very short tasks.
+ * <p>
+ * Two values are estimated:
+ * <ul>
+ *     <li>The <em>timer overhead</em>, which is what a task doing no work at all is measured to take. It is part of
+ *     every sample of every task.</li>
+ *     <li>The <em>nested overhead</em>, which is the full cost of one start/stop pair of a subtask, as seen by the
+ *     tasks enclosing it. It is part of the samples of every parent, once per invocation of a descendant task.</li>
+ * </ul>
+ * The values depend on the JIT compilation state and the clock source of the machine, so they are estimates only.
+ */
+public final class Calibration
+{
+    private static final int ROUNDS = 7;
+    private static final int ITERATIONS = 10_000;
+    private static final String PARENT_TASK = "calibration";
+    private static final String CHILD_TASK = "calibration-child";
+
+    private final long nanoTimeCost;
+    private final long timerOverhead;
+    private final long nestedOverhead;
+
+    private Calibration(final long nanoTimeCost, final long timerOverhead, final long nestedOverhead)
+    {
+        if (nanoTimeCost < 0 || timerOverhead < 0 || nestedOverhead < 0)
+        {
+            throw new IllegalArgumentException("Overhead values cannot be negative");
+        }
+        this.nanoTimeCost = nanoTimeCost;
+        this.timerOverhead = timerOverhead;
+        this.nestedOverhead = nestedOverhead;
+    }
+
+    /**
+     * Get the calibration of this JVM. It is measured on first use, and then reused.
+     *
+     * @return The calibration
+     */
+    public static Calibration get()
+    {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Create a calibration with known values, for example from a previous run of {@link #measure()}
+     *
+     * @param nanoTimeCost   The cost of a call to {@link System#nanoTime()}
+     * @param timerOverhead  The measured time of a task doing no work
+     * @param nestedOverhead The cost of a start/stop pair as seen by the enclosing tasks
+     * @return The calibration
+     */
+    public static Calibration of(final Duration nanoTimeCost, final Duration timerOverhead, final Duration nestedOverhead)
+    {
+        return new Calibration(nanoTimeCost.toNanos(), timerOverhead.toNanos(), nestedOverhead.toNanos());
+    }
+
+    /**
+     * Measure the overhead now. This takes a few milliseconds, and should preferably be done after the code paths of
+     * the instrumentation have been warmed up.
+     *
+     * @return The calibration
+     */
+    public static Calibration measure()
+    {
+        // Warm-up
+        measureNanoTime();
+        measureChronograph();
+
+        final long nanoTimeCost = measureNanoTime();
+        final long[] chronographCost = measureChronograph();
+        return new Calibration(nanoTimeCost, chronographCost[0], chronographCost[1]);
+    }
+
+    private static long measureNanoTime()
+    {
+        long best = Long.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++)
+        {
+            final long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++)
+            {
+                sink += System.nanoTime();
+            }
+            best = Math.min(best, (System.nanoTime() - start) / ITERATIONS);
+        }
+
+        // Keep the loop from being eliminated
+        return sink == 42 ? best + 1 : best;
+    }
+
+    private static long[] measureChronograph()
+    {
+        final long[] timerOverheads = new long[ROUNDS];
+        long nestedOverhead = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++)
+        {
+            final Chronograph chronograph = Chronograph.create(PARENT_TASK);
+            chronograph.start(PARENT_TASK);
+            final long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++)
+            {
+                chronograph.start(CHILD_TASK);
+                chronograph.stop();
+            }
+            nestedOverhead = Math.min(nestedOverhead, (System.nanoTime() - start) / ITERATIONS);
+            chronograph.stop();
+            timerOverheads[round] = chronograph.getTasks().get(0).getSubtasks().get(0).getStatistics().getMedian().toNanos();
+            chronograph.close();
+        }
+        Arrays.sort(timerOverheads);
+        final long timerOverhead = timerOverheads[ROUNDS / 2];
+        return new long[]{timerOverhead, Math.max(timerOverhead, nestedOverhead)};
+    }
+
+    /**
+     * The cost of a single call to {@link System#nanoTime()}
+     *
+     * @return The cost
+     */
+    public Duration getNanoTimeCost()
+    {
+        return Duration.ofNanos(nanoTimeCost);
+    }
+
+    /**
+     * The time a task doing no work is measured to take
+     *
+     * @return The timer overhead
+     */
+    public Duration getTimerOverhead()
+    {
+        return Duration.ofNanos(timerOverhead);
+    }
+
+    /**
+     * The cost of a start/stop pair of a subtask, as seen by the tasks enclosing it
+     *
+     * @return The nested overhead
+     */
+    public Duration getNestedOverhead()
+    {
+        return Duration.ofNanos(nestedOverhead);
+    }
+
+    /**
+     * The estimated overhead included in a single measurement
+     *
+     * @param descendantInvocations The number of invocations of subtasks (at any depth) during the measurement
+     * @return The estimated overhead in nanoseconds
+     */
+    long estimate(final long descendantInvocations)
+    {
+        return timerOverhead + descendantInvocations * nestedOverhead;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new StringJoiner(", ", Calibration.class.getSimpleName() + "[", "]")
+                .add("nanoTimeCost=" + nanoTimeCost + "ns")
+                .add("timerOverhead=" + timerOverhead + "ns")
+                .add("nestedOverhead=" + nestedOverhead + "ns")
+                .toString();
+    }
+
+    private static final class Holder
+    {
+        private static final Calibration INSTANCE = measure();
+    }
+}
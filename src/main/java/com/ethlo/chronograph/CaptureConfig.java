@@ -20,11 +20,17 @@ package com.ethlo.chronograph;
  * #L%
  */
 
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import com.ethlo.chronograph.internal.util.OffHeapLongList;
 
 /**
  * Represents the configuration for capturing samples, including the minimum interval
- * between samples (i.e., the sample rate).
+ * between samples (i.e., the sample rate) and how the samples are stored.
  */
 public class CaptureConfig
 {
@@ -34,6 +40,17 @@ public class CaptureConfig
     public static final CaptureConfig DEFAULT = CaptureConfig.minInterval(Duration.ZERO);
 
     private final Duration sampleRate;
+    private final double histogramRelativeError;
+    private final int reservoirCapacity;
+    private final Map<String, CaptureConfig> taskOverrides;
+    private final OverheadMode overheadMode;
+    private final Calibration calibration;
+    private final long offHeapMaxBytes;
+    private final OverflowPolicy overflowPolicy;
+    private final Path spillDirectory;
+    private final boolean compressed;
+    private final Duration windowSlot;
+    private final int windowSlots;
 
     /**
      * Private constructor for initializing the {@link CaptureConfig} from a {@link Builder}.
@@ -43,6 +60,17 @@ public class CaptureConfig
     private CaptureConfig(Builder builder)
     {
         this.sampleRate = builder.minInterval;
+        this.histogramRelativeError = builder.histogramRelativeError;
+        this.reservoirCapacity = builder.reservoirCapacity;
+        this.taskOverrides = Map.copyOf(builder.taskOverrides);
+        this.overheadMode = builder.overheadMode;
+        this.calibration = builder.calibration;
+        this.offHeapMaxBytes = builder.offHeapMaxBytes;
+        this.overflowPolicy = builder.overflowPolicy;
+        this.spillDirectory = builder.spillDirectory;
+        this.compressed = builder.compressed;
+        this.windowSlot = builder.windowSlot;
+        this.windowSlots = builder.windowSlots;
     }
 
     /**
@@ -56,6 +84,74 @@ public class CaptureConfig
         return builder().minInterval(minInterval).build();
     }
 
+    /**
+     * Creates a {@link CaptureConfig} that aggregates samples into a fixed-memory histogram.
+     *
+     * @param relativeError the maximum relative error of reported statistics, for example 0.01 for 1%
+     * @return a new {@link CaptureConfig} instance using histogram storage
+     */
+    public static CaptureConfig histogram(final double relativeError)
+    {
+        return builder().histogram(relativeError).build();
+    }
+
+    /**
+     * Creates a {@link CaptureConfig} that keeps a uniform random sample of at most the given size per task.
+     *
+     * @param capacity the maximum number of samples to keep per task
+     * @return a new {@link CaptureConfig} instance using reservoir sampling
+     */
+    public static CaptureConfig reservoir(final int capacity)
+    {
+        return builder().reservoir(capacity).build();
+    }
+
+    /**
+     * Creates a {@link CaptureConfig} that stores the samples outside the Java heap, limited to the given number of bytes.
+     *
+     * @param maxBytes       the maximum number of bytes used for samples
+     * @param overflowPolicy what to do with new samples when the limit is reached
+     * @return a new {@link CaptureConfig} instance using off-heap storage
+     */
+    public static CaptureConfig offHeap(final long maxBytes, final OverflowPolicy overflowPolicy)
+    {
+        return builder().offHeap(maxBytes, overflowPolicy).build();
+    }
+
+    /**
+     * Creates a {@link CaptureConfig} that appends the samples of each task to a memory-mapped file in the given directory.
+     *
+     * @param directory the directory of the sample files
+     * @return a new {@link CaptureConfig} instance spilling samples to disk
+     */
+    public static CaptureConfig spill(final Path directory)
+    {
+        return builder().spill(directory).build();
+    }
+
+    /**
+     * Creates a {@link CaptureConfig} that keeps every sample, compressed in memory.
+     *
+     * @return a new {@link CaptureConfig} instance using compressed storage
+     */
+    public static CaptureConfig compressed()
+    {
+        return builder().compressed().build();
+    }
+
+    /**
+     * Creates a {@link CaptureConfig} that keeps the statistics of each task over a sliding time window, in addition
+     * to the totals. See {@link Builder#window(Duration, int)}.
+     *
+     * @param slot  the length of each slot of the window
+     * @param slots the number of slots
+     * @return a new {@link CaptureConfig} instance using windowed storage
+     */
+    public static CaptureConfig window(final Duration slot, final int slots)
+    {
+        return builder().window(slot, slots).build();
+    }
+
     /**
      * Creates a new {@link Builder} instance to start building a {@link CaptureConfig}.
      *
@@ -76,12 +172,196 @@ public class CaptureConfig
         return sampleRate;
     }
 
+    /**
+     * Returns whether samples are rate-limited, i.e. the minimum interval is larger than zero.
+     *
+     * @return {@code true} if samples are rate-limited, {@code false} otherwise
+     */
+    public boolean isRateLimited()
+    {
+        return sampleRate != null && !sampleRate.isZero() && !sampleRate.isNegative();
+    }
+
+    /**
+     * Returns whether a fixed-size uniform random sample is kept per task.
+     *
+     * @return {@code true} if reservoir sampling is used, {@code false} otherwise
+     */
+    public boolean isReservoir()
+    {
+        return reservoirCapacity > 0;
+    }
+
+    /**
+     * Gets the maximum number of samples kept per task when reservoir sampling is used.
+     *
+     * @return the reservoir capacity, or 0 if reservoir sampling is not used
+     */
+    public int getReservoirCapacity()
+    {
+        return reservoirCapacity;
+    }
+
+    /**
+     * Returns the configuration to use for the given task, which is the override registered for
+     * the task name, or this configuration if there is none.
+     *
+     * @param taskName the name of the task
+     * @return the configuration for the task
+     */
+    public CaptureConfig forTask(final String taskName)
+    {
+        final CaptureConfig override = taskOverrides.get(taskName);
+        return override != null ? override : this;
+    }
+
+    /**
+     * Returns whether samples are aggregated into a histogram rather than stored individually.
+     *
+     * @return {@code true} if histogram storage is used, {@code false} otherwise
+     */
+    public boolean isHistogram()
+    {
+        return histogramRelativeError > 0;
+    }
+
+    /**
+     * Gets the maximum relative error of the histogram storage.
+     *
+     * @return the relative error, or 0 if histogram storage is not used
+     */
+    public double getHistogramRelativeError()
+    {
+        return histogramRelativeError;
+    }
+
+    /**
+     * Returns whether samples are stored outside the Java heap.
+     *
+     * @return {@code true} if off-heap storage is used, {@code false} otherwise
+     */
+    public boolean isOffHeap()
+    {
+        return offHeapMaxBytes > 0;
+    }
+
+    /**
+     * Gets the maximum number of bytes used for samples when off-heap storage is used.
+     *
+     * @return the limit in bytes, or 0 if off-heap storage is not used
+     */
+    public long getOffHeapMaxBytes()
+    {
+        return offHeapMaxBytes;
+    }
+
+    /**
+     * Gets what is done with new samples when the limit of the off-heap storage is reached.
+     *
+     * @return the overflow policy, or null if off-heap storage is not used
+     */
+    public OverflowPolicy getOverflowPolicy()
+    {
+        return overflowPolicy;
+    }
+
+    /**
+     * Returns whether samples are written to files on disk.
+     *
+     * @return {@code true} if samples are spilled to disk, {@code false} otherwise
+     */
+    public boolean isSpill()
+    {
+        return spillDirectory != null;
+    }
+
+    /**
+     * Gets the directory where the sample files are written when samples are spilled to disk.
+     *
+     * @return the directory, or null if samples are not spilled to disk
+     */
+    public Path getSpillDirectory()
+    {
+        return spillDirectory;
+    }
+
+    /**
+     * Returns whether samples are compressed in memory.
+     *
+     * @return {@code true} if compressed storage is used, {@code false} otherwise
+     */
+    public boolean isCompressed()
+    {
+        return compressed;
+    }
+
+    /**
+     * Returns whether the statistics of each task are kept over a sliding time window.
+     *
+     * @return {@code true} if windowed storage is used, {@code false} otherwise
+     */
+    public boolean isWindowed()
+    {
+        return windowSlots > 0;
+    }
+
+    /**
+     * Gets the length of each slot of the sliding window.
+     *
+     * @return the slot length, or null if windowed storage is not used
+     */
+    public Duration getWindowSlot()
+    {
+        return windowSlot;
+    }
+
+    /**
+     * Gets the number of slots of the sliding window.
+     *
+     * @return the number of slots, or 0 if windowed storage is not used
+     */
+    public int getWindowSlots()
+    {
+        return windowSlots;
+    }
+
+    /**
+     * Gets how the overhead of the instrumentation is handled.
+     *
+     * @return the overhead mode
+     */
+    public OverheadMode getOverheadMode()
+    {
+        return overheadMode;
+    }
+
+    /**
+     * Gets the calibration used to estimate the overhead of the instrumentation.
+     *
+     * @return the calibration, or null if the calibration of the running JVM is used
+     */
+    public Calibration getCalibration()
+    {
+        return calibration;
+    }
+
     /**
      * A builder class used to construct {@link CaptureConfig} instances.
      */
     public static final class Builder
     {
-        private Duration minInterval;
+        private Duration minInterval = Duration.ZERO;
+        private double histogramRelativeError;
+        private int reservoirCapacity;
+        private final Map<String, CaptureConfig> taskOverrides = new LinkedHashMap<>();
+        private OverheadMode overheadMode = OverheadMode.NONE;
+        private Calibration calibration;
+        private long offHeapMaxBytes;
+        private OverflowPolicy overflowPolicy;
+        private Path spillDirectory;
+        private boolean compressed;
+        private Duration windowSlot;
+        private int windowSlots;
 
         private Builder()
         {
@@ -99,14 +379,181 @@ public class CaptureConfig
             return this;
         }
 
+        /**
+         * Aggregates samples into a fixed-memory, log-linear histogram instead of keeping every raw sample.
+         * Min, max, mean and count are exact, while percentiles and standard deviation are accurate
+         * to within the given relative error.
+         *
+         * @param relativeError the maximum relative error, larger than 0 and no more than 0.5
+         * @return the current {@link Builder} instance
+         */
+        public Builder histogram(double relativeError)
+        {
+            if (!(relativeError > 0 && relativeError <= 0.5))
+            {
+                throw new IllegalArgumentException("relativeError must be larger than 0 and no more than 0.5");
+            }
+            this.histogramRelativeError = relativeError;
+            return this;
+        }
+
+        /**
+         * Keeps a uniform random sample of at most the given number of samples per task, using reservoir sampling.
+         * Unlike a minimum interval, the sample is not skewed by the arrival pattern of the invocations.
+         * Count and total time still cover every invocation.
+         *
+         * @param capacity the maximum number of samples to keep per task
+         * @return the current {@link Builder} instance
+         */
+        public Builder reservoir(int capacity)
+        {
+            if (capacity < 1)
+            {
+                throw new IllegalArgumentException("capacity cannot be less than 1");
+            }
+            this.reservoirCapacity = capacity;
+            return this;
+        }
+
+        /**
+         * Use a different configuration for the task with the given name, for example to rate-limit a
+         * frequently invoked task while keeping every sample of the others. Overrides of the given
+         * configuration are ignored.
+         *
+         * @param taskName the name of the task
+         * @param config   the configuration to use for the task
+         * @return the current {@link Builder} instance
+         */
+        public Builder task(String taskName, CaptureConfig config)
+        {
+            this.taskOverrides.put(Objects.requireNonNull(taskName, "taskName"), Objects.requireNonNull(config, "config"));
+            return this;
+        }
+
+        /**
+         * Sets how the overhead of the instrumentation itself is handled. This is mostly relevant for tasks running
+         * for less than a few microseconds, where the measurement cost can dominate the result. It applies to all
+         * tasks of a chronograph, and is ignored in task overrides.
+         *
+         * @param overheadMode the overhead mode
+         * @return the current {@link Builder} instance
+         * @see Calibration
+         */
+        public Builder overhead(OverheadMode overheadMode)
+        {
+            this.overheadMode = Objects.requireNonNull(overheadMode, "overheadMode");
+            return this;
+        }
+
+        /**
+         * Sets the calibration to use for estimating the overhead. If not set, the overhead is measured on the
+         * running JVM on first use with {@link Calibration#get()}.
+         *
+         * @param calibration the calibration
+         * @return the current {@link Builder} instance
+         */
+        public Builder calibration(Calibration calibration)
+        {
+            this.calibration = Objects.requireNonNull(calibration, "calibration");
+            return this;
+        }
+
+        /**
+         * Stores the samples outside the Java heap, in chunks of {@value OffHeapLongList#CHUNK_SIZE} samples, so large
+         * sample sets do not add to the garbage collection work. Each chronograph has its own limit, shared by all its
+         * tasks using the resulting configuration. Count, total time, min, max and average still cover every invocation.
+         * <p>
+         * The memory is returned to the limit by {@link Chronograph#resetAll()} and {@link Chronograph#close()}.
+         *
+         * @param maxBytes       the maximum number of bytes used for samples, at least the size of one chunk
+         * @param overflowPolicy what to do with new samples when the limit is reached
+         * @return the current {@link Builder} instance
+         */
+        public Builder offHeap(long maxBytes, OverflowPolicy overflowPolicy)
+        {
+            if (maxBytes < (long) OffHeapLongList.CHUNK_SIZE * Long.BYTES)
+            {
+                throw new IllegalArgumentException("maxBytes cannot be less than " + (long) OffHeapLongList.CHUNK_SIZE * Long.BYTES);
+            }
+            this.offHeapMaxBytes = maxBytes;
+            this.overflowPolicy = Objects.requireNonNull(overflowPolicy, "overflowPolicy");
+            return this;
+        }
+
+        /**
+         * Appends the samples of each task to a memory-mapped file in the given directory, for capture runs with more
+         * samples than fit in memory. Count, total time, min, max, mean and standard deviation are exact, while
+         * percentiles are computed by streaming over the file, with a relative error of 0.1%.
+         * <p>
+         * The file of a task is created with its first sample. {@link Chronograph#close()} trims and unmaps the files,
+         * which are opened again when read. The files are deleted by {@link Chronograph#resetAll()}, and otherwise left
+         * in the directory.
+         *
+         * @param directory the directory of the sample files, which must exist
+         * @return the current {@link Builder} instance
+         */
+        public Builder spill(Path directory)
+        {
+            this.spillDirectory = Objects.requireNonNull(directory, "directory");
+            return this;
+        }
+
+        /**
+         * Keeps every sample, compressed in blocks of differences encoded as variable length integers. This typically
+         * uses 2 to 4 bytes per sample instead of 8, at the cost of decoding the samples when statistics are computed.
+         *
+         * @return the current {@link Builder} instance
+         */
+        public Builder compressed()
+        {
+            this.compressed = true;
+            return this;
+        }
+
+        /**
+         * Keeps the samples of each task in a ring of histograms, one per time slot, so the statistics of a recent
+         * window like the last minute can be queried with {@link TaskInfo#getStatistics(Duration)}. The totals of all
+         * samples are kept in a histogram as well. The memory use per task is bounded by the number of slots, and the
+         * longest window is <code>slot * slots</code>, for example 60 slots of 15 seconds for 15 minutes. Windows are
+         * rounded up to whole slots.
+         * <p>
+         * The precision is taken from {@link #histogram(double)} if set, otherwise a relative error of 1% is used.
+         *
+         * @param slot  the length of each slot
+         * @param slots the number of slots
+         * @return the current {@link Builder} instance
+         */
+        public Builder window(Duration slot, int slots)
+        {
+            Objects.requireNonNull(slot, "slot");
+            if (slot.isNegative() || slot.isZero())
+            {
+                throw new IllegalArgumentException("slot must be positive");
+            }
+            if (slots < 1)
+            {
+                throw new IllegalArgumentException("slots cannot be less than 1");
+            }
+            this.windowSlot = slot;
+            this.windowSlots = slots;
+            return this;
+        }
+
         /**
          * Builds a {@link CaptureConfig} instance using the current builder state.
          *
          * @return a new {@link CaptureConfig} instance
+         * @throws IllegalArgumentException if more than one of minimum interval, histogram or windowed storage, reservoir sampling, off-heap storage, spilling to disk and compressed storage is configured
          */
         public CaptureConfig build()
         {
-            return new CaptureConfig(this);
+            final CaptureConfig config = new CaptureConfig(this);
+            final int modes = (config.isRateLimited() ? 1 : 0) + (config.isHistogram() || config.isWindowed() ? 1 : 0) + (config.isReservoir() ? 1 : 0) + (config.isOffHeap() ? 1 : 0) + (config.isSpill() ? 1 : 0) + (config.isCompressed() ? 1 : 0);
+            if (modes > 1)
+            {
+                throw new IllegalArgumentException("Only one of minimum interval, histogram or windowed storage, reservoir sampling, off-heap storage, spilling to disk and compressed storage can be used");
+            }
+            return config;
         }
     }
 }
\ No newline at end of file
@@ -22,13 +22,14 @@ package com.ethlo.chronograph;
 
 import java.time.Duration;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
@@ -73,7 +74,19 @@ import java.util.function.ToLongBiFunction;
 import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 
+import com.ethlo.chronograph.internal.ChildCache;
+import com.ethlo.chronograph.internal.HistogramTaskInfo;
 import com.ethlo.chronograph.internal.MutableTaskInfo;
+import com.ethlo.chronograph.internal.RateLimitedTaskInfo;
+import com.ethlo.chronograph.internal.ReservoirTaskInfo;
+import com.ethlo.chronograph.internal.SpillTaskInfo;
+import com.ethlo.chronograph.internal.TaskSnapshot;
+import com.ethlo.chronograph.internal.WindowedTaskInfo;
+import com.ethlo.chronograph.internal.util.BlockPool;
+import com.ethlo.chronograph.internal.util.CompressedLongList;
+import com.ethlo.chronograph.internal.util.LongList;
+import com.ethlo.chronograph.internal.util.MemoryBudget;
+import com.ethlo.chronograph.internal.util.OffHeapLongList;
 import com.ethlo.chronograph.output.OutputFormatter;
 import com.ethlo.chronograph.output.json.JsonOutputFormatter;
 import com.ethlo.chronograph.output.table.TableOutputFormatter;
@@ -95,17 +108,37 @@ import com.ethlo.chronograph.output.table.TableThemes;
  * </ul>
  * </div>
  */
-public class Chronograph
+public class Chronograph implements AutoCloseable
 {
     private static final TableOutputFormatter DEFAULT_FORMATTER = new TableOutputFormatter(TableThemes.ASCII, OutputConfig.DEFAULT);
-    private final ScheduledExecutorService scheduledExecutorService = new ScheduledThreadPoolExecutor(1);
+
+    // Cached for a parent where the task name is already used by the parent or one of its ancestors
+    private static final MutableTaskInfo RECURSIVE = new MutableTaskInfo("<recursive>", null);
+
+    // Names beyond this are looked up without a handle, so distinct names cannot grow the registry without bounds
+    private static final int MAX_HANDLES = 4_096;
 
     private final Deque<MutableTaskInfo> taskStack = new ArrayDeque<>(); // Tracks the active task
     private final Map<Object, MutableTaskInfo> tasksByKey = new LinkedHashMap<>();
+    private final Map<String, TaskHandle> handles = new HashMap<>();
+    private int nextHandleId; // Not reused after the handles are cleared, so older handles stay valid
+    private final ChildCache rootCache = new ChildCache();
+    private final BlockPool blockPool = new BlockPool(BlockPool.DEFAULT_MAX_BYTES); // Reused by tasks after resetAll
+    private final Map<CaptureConfig, MemoryBudget> offHeapBudgets = new HashMap<>(); // One limit per configuration
+    private TaskScope[] scopes = new TaskScope[8];
 
     private final CaptureConfig captureConfig;
     private final String name;
 
+    // Overhead estimation: the invocation count at the start of each active task, indexed by stack depth
+    private final Calibration calibration;
+    private final boolean subtractOverhead;
+    private long[] invocationMarks = new long[8];
+    private long invocations;
+
+    private volatile ChronographData published;
+    private boolean tasksHandedOut; // Returned tasks keep referring to their samples, which must then not be recycled
+
     private Chronograph(final String name)
     {
         this(name, CaptureConfig.DEFAULT);
@@ -115,6 +148,15 @@ public class Chronograph
     {
         this.name = name;
         this.captureConfig = captureConfig;
+        this.subtractOverhead = captureConfig.getOverheadMode() == OverheadMode.SUBTRACT;
+        if (captureConfig.getOverheadMode() == OverheadMode.NONE)
+        {
+            this.calibration = null;
+        }
+        else
+        {
+            this.calibration = captureConfig.getCalibration() != null ? captureConfig.getCalibration() : Calibration.get();
+        }
     }
 
     /**
@@ -1068,6 +1110,42 @@ public class Chronograph
         }
     }
 
+    /**
+     * Get a handle for the task with the given name, for starting and stopping it without looking it up by name
+     *
+     * @param task The name of the task
+     * @return The handle, which is the same instance for every call with the same name until {@link #resetAll()} or
+     * {@link #close()} is called. Once {@value #MAX_HANDLES} names are registered, a new handle is returned for
+     * every call with another name.
+     */
+    public TaskHandle task(final String task)
+    {
+        final TaskHandle handle = registeredHandle(task);
+        return handle != null ? handle : new TaskHandle(this, nextHandleId++, task);
+    }
+
+    /**
+     * Returns the registered handle of the task, registering one if there is room
+     *
+     * @return The handle, or null if the registry is full
+     */
+    private TaskHandle registeredHandle(final String task)
+    {
+        if (task == null)
+        {
+            throw new IllegalArgumentException("task must not be null");
+        }
+
+        final TaskHandle existing = handles.get(task);
+        if (existing != null || handles.size() >= MAX_HANDLES)
+        {
+            return existing;
+        }
+        final TaskHandle handle = new TaskHandle(this, nextHandleId++, task);
+        handles.put(task, handle);
+        return handle;
+    }
+
     /**
      * Start the timing of a named task
      *
@@ -1076,35 +1154,93 @@ public class Chronograph
      */
     public boolean start(String task)
     {
-        if (task == null)
+        final TaskHandle handle = registeredHandle(task);
+        return handle != null ? startHandle(handle) : startTask(resolve(taskStack.peek(), task));
+    }
+
+    boolean startHandle(final TaskHandle handle)
+    {
+        final MutableTaskInfo parent = taskStack.peek();
+        final ChildCache cache = parent != null ? parent.getChildCache() : rootCache;
+        MutableTaskInfo taskInfo = cache.get(handle.getId());
+        if (taskInfo == null)
         {
-            throw new IllegalArgumentException("task must not be null");
+            taskInfo = resolve(parent, handle.getName());
+            cache.put(handle.getId(), taskInfo);
         }
+        return startTask(taskInfo);
+    }
 
+    private boolean startTask(final MutableTaskInfo taskInfo)
+    {
+        if (taskInfo != RECURSIVE && taskInfo.start())
+        {
+            taskStack.push(taskInfo);
+            if (calibration != null)
+            {
+                markInvocation();
+            }
+            return true;
+        }
+
+        // Task was already running in this specific context (parent/name pair)
+        return false;
+    }
+
+    private MutableTaskInfo resolve(final MutableTaskInfo parent, final String task)
+    {
         // COMPATIBILITY CHECK: Is this task name already active in the current stack?
+        // The stack is always the parent and its ancestors, so the result only depends on the parent
         for (MutableTaskInfo active : taskStack)
         {
             if (active.getName().equals(task))
             {
-                return false;
+                return RECURSIVE;
             }
         }
 
-        final MutableTaskInfo parent = taskStack.peek();
         final TaskKey key = new TaskKey(parent, task);
+        return tasksByKey.computeIfAbsent(key, k -> createTaskInfo(task, parent));
+    }
 
-        final MutableTaskInfo taskInfo = tasksByKey.computeIfAbsent(key, k ->
-                new MutableTaskInfo(task, parent)
-        );
+    private MemoryBudget offHeapBudget(final CaptureConfig config)
+    {
+        return offHeapBudgets.computeIfAbsent(config, c -> new MemoryBudget(c.getOffHeapMaxBytes()));
+    }
 
-        if (taskInfo.start())
+    private MutableTaskInfo createTaskInfo(final String task, final MutableTaskInfo parent)
+    {
+        final CaptureConfig config = captureConfig.forTask(task);
+        if (config.isWindowed())
         {
-            taskStack.push(taskInfo);
-            return true;
+            final double relativeError = config.isHistogram() ? config.getHistogramRelativeError() : WindowedTaskInfo.DEFAULT_RELATIVE_ERROR;
+            return new WindowedTaskInfo(task, parent, relativeError, config.getWindowSlot(), config.getWindowSlots());
         }
-
-        // Task was already running in this specific context (parent/name pair)
-        return false;
+        if (config.isHistogram())
+        {
+            return new HistogramTaskInfo(task, parent, config.getHistogramRelativeError());
+        }
+        if (config.isRateLimited())
+        {
+            return new RateLimitedTaskInfo(task, config.getMinInterval(), parent);
+        }
+        if (config.isReservoir())
+        {
+            return new ReservoirTaskInfo(task, parent, config.getReservoirCapacity());
+        }
+        if (config.isOffHeap())
+        {
+            return new MutableTaskInfo(task, parent, new OffHeapLongList(offHeapBudget(config), config.getOverflowPolicy()));
+        }
+        if (config.isCompressed())
+        {
+            return new MutableTaskInfo(task, parent, new CompressedLongList());
+        }
+        if (config.isSpill())
+        {
+            return new SpillTaskInfo(task, parent, config.getSpillDirectory());
+        }
+        return new MutableTaskInfo(task, parent, new LongList(blockPool));
     }
 
     /**
@@ -1118,11 +1254,113 @@ public class Chronograph
         final MutableTaskInfo task = taskStack.pollFirst(); // pollFirst is slightly safer/clearer for Deque
         if (task != null)
         {
-            return task.stopped(ts);
+            return stopped(task, ts);
         }
         return false;
     }
 
+    /**
+     * Start the timing of a named task, and return a scope that stops it when closed
+     *
+     * @param task The name of the task
+     * @return The scope of the running task. If the task could not be started, as a task with the same name is
+     * already running, the scope is not open and closing it has no effect.
+     * @see TaskScope
+     */
+    public TaskScope scope(final String task)
+    {
+        return openScope(start(task));
+    }
+
+    TaskScope scopeHandle(final TaskHandle handle)
+    {
+        return openScope(startHandle(handle));
+    }
+
+    private TaskScope openScope(final boolean started)
+    {
+        if (!started)
+        {
+            return TaskScope.NOT_STARTED;
+        }
+
+        final int depth = taskStack.size() - 1;
+        if (depth == scopes.length)
+        {
+            scopes = Arrays.copyOf(scopes, depth * 2);
+        }
+        TaskScope scope = scopes[depth];
+        if (scope == null)
+        {
+            scope = new TaskScope(this);
+            scopes[depth] = scope;
+        }
+        return scope.open(taskStack.peek());
+    }
+
+    void stopScope(final MutableTaskInfo task)
+    {
+        if (taskStack.peek() == task)
+        {
+            stop();
+            return;
+        }
+
+        // Tasks started inside the scope and left running are stopped along with it
+        if (taskStack.contains(task))
+        {
+            MutableTaskInfo stopped;
+            do
+            {
+                stopped = taskStack.peek();
+                stop();
+            }
+            while (stopped != task);
+        }
+    }
+
+    boolean stopHandle(final TaskHandle handle)
+    {
+        final MutableTaskInfo top = taskStack.peek();
+        if (top == null || !top.getName().equals(handle.getName()))
+        {
+            return false;
+        }
+        return stop();
+    }
+
+    private void markInvocation()
+    {
+        final int depth = taskStack.size() - 1;
+        if (depth == invocationMarks.length)
+        {
+            invocationMarks = Arrays.copyOf(invocationMarks, depth * 2);
+        }
+        invocationMarks[depth] = ++invocations;
+    }
+
+    /**
+     * Stop a task that has just been removed from the stack, accounting for the instrumentation overhead if enabled
+     */
+    private boolean stopped(final MutableTaskInfo task, final long ts)
+    {
+        if (calibration == null)
+        {
+            return task.stopped(ts);
+        }
+
+        // Every task started after this one is a descendant, and its bookkeeping is included in this measurement
+        final long descendants = invocations - invocationMarks[taskStack.size()];
+        final long elapsed = Math.max(0, ts - task.getTaskStartTimestamp());
+        final long overhead = Math.min(elapsed, calibration.estimate(descendants));
+        final boolean stopped = task.stopped(subtractOverhead ? ts - overhead : ts);
+        if (stopped)
+        {
+            task.addInstrumentationOverhead(overhead);
+        }
+        return stopped;
+    }
+
     /**
      * Check if any task is running
      *
@@ -1134,12 +1372,33 @@ public class Chronograph
     }
 
     /**
-     * Reset the chronograph and clear all tasks
+     * Reset the chronograph and clear all tasks. The memory of off-heap samples is returned to its limit, and the files
+     * of samples spilled to disk are deleted. The sample memory is kept for reuse by new tasks, unless tasks have been
+     * returned by {@link #getTasks()}, {@link #getTask(String)} or {@link #getTaskData()} since the previous reset.
+     * Returned tasks keep their data either way, with off-heap and spilled samples summarized in a histogram.
      */
     public void resetAll()
     {
         taskStack.clear();
+        final boolean recycle = !tasksHandedOut;
+        tasksByKey.values().forEach(task -> task.discard(recycle));
+        tasksHandedOut = false;
         tasksByKey.clear();
+        rootCache.clear();
+        handles.clear();
+    }
+
+    /**
+     * Stops all tasks and releases the resources held by this instance, like the shared scheduler used for
+     * rate-limited capture. The collected data is still available after closing, but off-heap samples are replaced
+     * by a histogram summary on the heap, so their memory is returned to its limit.
+     */
+    @Override
+    public void close()
+    {
+        stopAll();
+        tasksByKey.values().forEach(MutableTaskInfo::release);
+        handles.clear();
     }
 
     /**
@@ -1151,6 +1410,7 @@ public class Chronograph
      */
     public TaskInfo getTask(final String task)
     {
+        tasksHandedOut = true;
         return findByName(task).orElseThrow(() -> new IllegalStateException("Unknown task " + task));
     }
 
@@ -1184,6 +1444,12 @@ public class Chronograph
      * @return the root tasks
      */
     public List<TaskInfo> getTasks()
+    {
+        tasksHandedOut = true;
+        return rootTasks();
+    }
+
+    private List<TaskInfo> rootTasks()
     {
         return tasksByKey.values().stream()
                 .filter(t -> t.getParent() == null)
@@ -1217,7 +1483,7 @@ public class Chronograph
      */
     public Duration getTotalTime()
     {
-        return Duration.ofNanos(getTasks().stream()
+        return Duration.ofNanos(rootTasks().stream()
                 .map(TaskInfo::getTime)
                 .map(Duration::toNanos)
                 .reduce(0L, Long::sum));
@@ -1233,6 +1499,74 @@ public class Chronograph
         return new ChronographData(name, getTasks());
     }
 
+    /**
+     * Return the task data of a recent time window, like the last five minutes, for reporting or alerting on recent
+     * behaviour rather than on everything recorded so far.
+     *
+     * @param window the length of the window, ending now
+     * @return the task data of the window
+     * @throws UnsupportedOperationException if any task does not keep windowed statistics
+     * @see CaptureConfig.Builder#window(Duration, int)
+     */
+    public ChronographData getTaskData(final Duration window)
+    {
+        final List<TaskInfo> roots = getTasks();
+        final List<TaskInfo> result = new ArrayList<>(roots.size());
+        for (TaskInfo root : roots)
+        {
+            result.add(WindowedTaskInfo.windowOf(root, window));
+        }
+        return new ChronographData(name, result);
+    }
+
+    /**
+     * Take an immutable snapshot of the task data. Like all other methods, it must be called by the thread recording
+     * the tasks, but the snapshot can be read, formatted and merged by any thread afterwards. Tasks that are currently
+     * running are included with the invocations completed so far.
+     * <p>
+     * The samples of each task are summarized in a histogram with a relative error of
+     * {@value MutableTaskInfo#SNAPSHOT_RELATIVE_ERROR}. The first snapshot of a task makes a pass over its samples,
+     * after which the summary is kept up to date, so later snapshots only copy the histogram buckets.
+     * </p>
+     *
+     * @return the snapshot
+     */
+    public ChronographData snapshot()
+    {
+        final List<TaskInfo> roots = rootTasks();
+        final List<TaskInfo> snapshots = new ArrayList<>(roots.size());
+        for (TaskInfo root : roots)
+        {
+            snapshots.add(TaskSnapshot.of(root));
+        }
+        return new ChronographData(name, snapshots);
+    }
+
+    /**
+     * Take a {@link #snapshot()} and make it available to other threads through {@link #getPublished()}. Calling this
+     * periodically from the recording thread lets a reporting thread collect the data of many instances without
+     * pausing them.
+     *
+     * @return the published snapshot
+     */
+    public ChronographData publish()
+    {
+        final ChronographData snapshot = snapshot();
+        published = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * Get the latest snapshot published by {@link #publish()}. Safe to call from any thread.
+     *
+     * @return the latest published snapshot, or empty data if nothing has been published yet
+     */
+    public ChronographData getPublished()
+    {
+        final ChronographData snapshot = published;
+        return snapshot != null ? snapshot : new ChronographData(name, List.of());
+    }
+
     /**
      * Stop all tasks
      */
@@ -1244,7 +1578,7 @@ public class Chronograph
             // We pop and stop each one individually to ensure
             // every running flag is flipped to false.
             final MutableTaskInfo task = taskStack.pop();
-            task.stopped(ts);
+            stopped(task, ts);
         }
     }
 
@@ -23,15 +23,19 @@ package com.ethlo.chronograph;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
-import com.ethlo.chronograph.internal.MutableTaskInfo;
+import com.ethlo.chronograph.internal.TaskMerger;
 
 /**
  * Holder of the data for a {@link Chronograph} run
  */
 public class ChronographData
 {
+    /**
+     * The default largest number of instances merged by a single thread in {@link #mergeParallel(String, List)}
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 16;
+
     private final String name;
     private final List<TaskInfo> rootTasks;
     private final Duration totalTime;
@@ -61,7 +65,7 @@ public class ChronographData
     }
 
     /**
-     * Merge all data from multiple instances.
+     * Merge all data from multiple instances in a single pass. The data of the instances is left untouched.
      *
      * @param name  The name of the merged data
      * @param input The instances to merge
@@ -77,52 +81,77 @@ public class ChronographData
         {
             return input.get(0).getTaskData();
         }
-        else
+
+        final List<List<TaskInfo>> roots = new ArrayList<>(input.size());
+        for (Chronograph chronograph : input)
         {
-            ChronographData last = input.get(0).getTaskData();
-            for (int i = 1; i < input.size(); i++)
-            {
-                last = last.merge(name, input.get(i).getTaskData());
-            }
-            return last;
+            roots.add(chronograph.getTaskData().getRootTasks());
         }
+        return new ChronographData(name, TaskMerger.merge(roots));
     }
 
-    private static void flattenTaskInfo(TaskInfo task, List<TaskInfo> result)
+    /**
+     * Merge several sets of data, like snapshots published by {@link Chronograph#publish()}, into a new tree. The
+     * input is left untouched.
+     *
+     * @param name  The name of the merged data
+     * @param input The data to merge
+     * @return A merged instance
+     */
+    public static ChronographData mergeAll(final String name, final List<ChronographData> input)
     {
-        result.add(task);
-        for (TaskInfo child : task.getSubtasks())
+        final List<List<TaskInfo>> roots = new ArrayList<>(input.size());
+        for (ChronographData data : input)
         {
-            flattenTaskInfo(child, result);
+            roots.add(data.getRootTasks());
         }
+        return new ChronographData(name, TaskMerger.merge(roots));
+    }
+
+    /**
+     * Merge all data from multiple instances in parallel, using {@link #DEFAULT_PARALLEL_THRESHOLD}.
+     *
+     * @param name  The name of the merged data
+     * @param input The instances to merge
+     * @return A merged instance
+     * @see #mergeParallel(String, List, int)
+     */
+    public static ChronographData mergeParallel(final String name, final List<Chronograph> input)
+    {
+        return mergeParallel(name, input, DEFAULT_PARALLEL_THRESHOLD);
     }
 
-    private static List<TaskInfo> mergeTaskInfoLists(List<TaskInfo> list1, List<TaskInfo> list2)
+    /**
+     * Merge all data from multiple instances in parallel on the common fork-join pool, reducing the instances as a
+     * balanced tree. The data of the instances is left untouched, but the instances must not be used while merging.
+     *
+     * @param name      The name of the merged data
+     * @param input     The instances to merge
+     * @param threshold The largest number of instances merged by a single thread
+     * @return A merged instance
+     */
+    public static ChronographData mergeParallel(final String name, final List<Chronograph> input, final int threshold)
     {
-        // Create a new list to hold the merged results
-        List<TaskInfo> mergedList = new ArrayList<>(list1);
+        if (input.isEmpty())
+        {
+            throw new IllegalArgumentException("No results to combine");
+        }
 
-        for (TaskInfo task2 : list2)
+        final List<List<TaskInfo>> roots = new ArrayList<>(input.size());
+        for (Chronograph chronograph : input)
         {
-            // Check if task2 already exists in the merged list
-            Optional<TaskInfo> existingTaskOpt = mergedList.stream()
-                    .filter(existingTask -> existingTask.getName().equals(task2.getName()))
-                    .findFirst();
-
-            if (existingTaskOpt.isPresent())
-            {
-                // If the task exists, merge the data
-                MutableTaskInfo existingTask = (MutableTaskInfo) existingTaskOpt.get();
-                existingTask.merge((MutableTaskInfo) task2);  // Merge the data from task2 into the existing task
-            }
-            else
-            {
-                // If the task does not exist, add it to the merged list
-                mergedList.add(task2);
-            }
+            roots.add(chronograph.getTaskData().getRootTasks());
         }
+        return new ChronographData(name, TaskMerger.mergeParallel(roots, threshold));
+    }
 
-        return mergedList;
+    private static void flattenTaskInfo(TaskInfo task, List<TaskInfo> result)
+    {
+        result.add(task);
+        for (TaskInfo child : task.getSubtasks())
+        {
+            flattenTaskInfo(child, result);
+        }
     }
 
     /**
@@ -166,7 +195,7 @@ public class ChronographData
     }
 
     /**
-     * Merge with another instance
+     * Merge with another instance. Both instances are left untouched.
      *
      * @param name            The name of the new instance
      * @param chronographData The data to merge with
@@ -174,7 +203,20 @@ public class ChronographData
      */
     public ChronographData merge(String name, ChronographData chronographData)
     {
-        return new ChronographData(name, mergeTaskInfoLists(this.rootTasks, chronographData.rootTasks));
+        return new ChronographData(name, TaskMerger.merge(List.of(this.rootTasks, chronographData.rootTasks)));
+    }
+
+    /**
+     * Merge the data of another instance into the tasks of this instance, which avoids copying the data when
+     * accumulating many instances. The other instance should not be used afterwards.
+     *
+     * @param name            The name of the new instance
+     * @param chronographData The data to merge into this instance
+     * @return An instance with the tasks of this instance, updated with the data of the specified instance
+     */
+    public ChronographData mergeInto(String name, ChronographData chronographData)
+    {
+        return new ChronographData(name, TaskMerger.mergeInto(this.rootTasks, chronographData.rootTasks));
     }
 
     /**
@@ -0,0 +1,430 @@
+package com.ethlo.chronograph;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.ethlo.Beta;
+import com.ethlo.chronograph.internal.HistogramTaskInfo;
+import com.ethlo.chronograph.internal.MutableTaskInfo;
+import com.ethlo.chronograph.internal.WindowedTaskInfo;
+import com.ethlo.chronograph.internal.util.SlidingWindowHistogram;
+import com.ethlo.chronograph.internal.util.StripedHistogram;
+import com.ethlo.chronograph.output.table.TableOutputFormatter;
+import com.ethlo.chronograph.output.table.TableThemes;
+import com.ethlo.sampler.SharedScheduler;
+
+/**
+ * A {@link Chronograph} variant that can be shared between threads.
+ * <p>
+ * Every thread has its own task stack, while the task tree and the per-task data are shared. Samples are recorded
+ * into per-thread stripes of a histogram, so threads never contend with each other when recording, and
+ * {@link #getTaskData()} can be called at any time to read a snapshot without pausing the recording threads. For
+ * periodic reporting, {@link #snapshotAndReset()} and {@link #report(Duration, Consumer)} return the data of each
+ * interval instead of the totals. The stripes of threads that have ended are folded into the totals and dropped, so
+ * short-lived threads can use the same instance.
+ * </p>
+ * <p>
+ * Samples are always stored in histograms. The precision is taken from {@link CaptureConfig#getHistogramRelativeError()}
+ * if set, otherwise a relative error of 1% is used. With {@link CaptureConfig.Builder#window(Duration, int)}, the
+ * statistics of a recent time window are kept as well, rotated by the {@link SharedScheduler} until {@link #close()}
+ * is called.
+ * </p>
+ */
+@Beta
+public class ConcurrentChronograph implements AutoCloseable
+{
+    private static final double DEFAULT_RELATIVE_ERROR = 0.01;
+    private static final TableOutputFormatter DEFAULT_FORMATTER = new TableOutputFormatter(TableThemes.ASCII, OutputConfig.DEFAULT);
+
+    private final String name;
+    private final double relativeError;
+    private final Node root;
+    private final ThreadLocal<ThreadState> threadState = ThreadLocal.withInitial(ThreadState::new);
+    private final SharedScheduler.Lease lease;
+    private final ScheduledFuture<?> rotation;
+
+    private ConcurrentChronograph(final String name, final CaptureConfig captureConfig)
+    {
+        this.name = name;
+        this.relativeError = captureConfig.isHistogram() ? captureConfig.getHistogramRelativeError() : DEFAULT_RELATIVE_ERROR;
+        if (captureConfig.isWindowed())
+        {
+            this.root = new Node(null, new StripedHistogram(relativeError, new SlidingWindowHistogram(relativeError, captureConfig.getWindowSlot(), captureConfig.getWindowSlots())));
+
+            // Move the samples to the window at least once per slot, so they are counted in the slot they were recorded in
+            final long slotNanos = captureConfig.getWindowSlot().toNanos();
+            this.lease = SharedScheduler.acquire();
+            this.rotation = lease.executor().scheduleAtFixedRate(() -> drain(root), slotNanos, slotNanos, TimeUnit.NANOSECONDS);
+        }
+        else
+        {
+            this.root = new Node(null, new StripedHistogram(relativeError));
+            this.lease = null;
+            this.rotation = null;
+        }
+    }
+
+    /**
+     * Creates a new instance without a name.
+     *
+     * @return a new instance
+     */
+    public static ConcurrentChronograph create()
+    {
+        return create(null);
+    }
+
+    /**
+     * Creates a new instance with the given name
+     *
+     * @param name The name of the instance
+     * @return a new instance
+     */
+    public static ConcurrentChronograph create(final String name)
+    {
+        return create(name, CaptureConfig.DEFAULT);
+    }
+
+    /**
+     * Creates a new instance with the given name and configuration
+     *
+     * @param name          The name of the instance
+     * @param captureConfig the configuration of the task capture
+     * @return a new instance
+     */
+    public static ConcurrentChronograph create(final String name, final CaptureConfig captureConfig)
+    {
+        return new ConcurrentChronograph(name, captureConfig);
+    }
+
+    /**
+     * Measures execution time for a given task.
+     *
+     * @param taskName The name of the task being measured.
+     * @param task     The task to execute.
+     */
+    public void time(final String taskName, final Runnable task)
+    {
+        try
+        {
+            start(taskName);
+            task.run();
+        } finally
+        {
+            stop();
+        }
+    }
+
+    /**
+     * Measures execution time for a given task.
+     *
+     * @param taskName The name of the task being measured.
+     * @param task     The task to execute.
+     * @param <R>      The return type
+     * @return The result of the task
+     */
+    public <R> R time(final String taskName, final Supplier<R> task)
+    {
+        try
+        {
+            start(taskName);
+            return task.get();
+        } finally
+        {
+            stop();
+        }
+    }
+
+    /**
+     * Start the timing of a named task on the current thread
+     *
+     * @param task The name of the task
+     * @return True if the task was started, false if it was already running on the current thread
+     */
+    public boolean start(final String task)
+    {
+        if (task == null)
+        {
+            throw new IllegalArgumentException("task must not be null");
+        }
+
+        final ThreadState state = threadState.get();
+        for (Node active : state.stack)
+        {
+            if (active.name.equals(task))
+            {
+                return false;
+            }
+        }
+
+        final Node parent = state.stack.isEmpty() ? root : state.stack.peek();
+        state.push(parent.child(task));
+        return true;
+    }
+
+    /**
+     * Stop the active task of the current thread
+     *
+     * @return True if a task was stopped, otherwise false
+     */
+    public boolean stop()
+    {
+        final long ts = System.nanoTime();
+        return threadState.get().pop(ts);
+    }
+
+    /**
+     * Check if any task is running on the current thread
+     *
+     * @return True if any task is running, otherwise false
+     */
+    public boolean isAnyRunning()
+    {
+        return !threadState.get().stack.isEmpty();
+    }
+
+    /**
+     * Stop all tasks running on the current thread
+     */
+    public void stopAll()
+    {
+        final long ts = System.nanoTime();
+        final ThreadState state = threadState.get();
+        while (state.pop(ts))
+        {
+            // Keep popping until the stack is empty
+        }
+    }
+
+    /**
+     * Returns a snapshot of the root tasks recorded by all threads
+     *
+     * @return the root tasks
+     */
+    public List<TaskInfo> getTasks()
+    {
+        final List<TaskInfo> result = new ArrayList<>(root.children.size());
+        for (Node child : root.children)
+        {
+            result.add(snapshot(child, null));
+        }
+        return result;
+    }
+
+    /**
+     * Return a snapshot of the task data recorded by all threads. Tasks that are currently running are not included
+     * until they are stopped.
+     *
+     * @return all task data
+     */
+    public ChronographData getTaskData()
+    {
+        return new ChronographData(name, getTasks());
+    }
+
+    /**
+     * Return the task data recorded by all threads since the previous call, and start a new interval. The data of
+     * each task is swapped out atomically without blocking the recording threads, so every invocation is reported in
+     * exactly one interval. The task tree is kept, so tasks without invocations in the interval are included with a
+     * count of zero. The totals returned by {@link #getTaskData()} are not affected.
+     *
+     * @return the task data of the interval
+     */
+    public ChronographData snapshotAndReset()
+    {
+        final List<TaskInfo> result = new ArrayList<>(root.children.size());
+        for (Node child : root.children)
+        {
+            result.add(snapshotAndReset(child, null));
+        }
+        return new ChronographData(name, result);
+    }
+
+    /**
+     * Pass the task data of every interval to a callback, using {@link #snapshotAndReset()}. The callback runs on
+     * the {@link SharedScheduler} thread, so it should hand off any slow work, like writing to a remote system.
+     *
+     * @param interval The length of each interval
+     * @param callback The callback to receive the data of each interval
+     * @return A handle to stop the reporting
+     */
+    public IntervalReporter report(final Duration interval, final Consumer<ChronographData> callback)
+    {
+        return new IntervalReporter(this::snapshotAndReset, interval, callback);
+    }
+
+    /**
+     * Return the task data recorded by all threads within a recent time window, like the last five minutes. Only
+     * available when created with {@link CaptureConfig.Builder#window(Duration, int)}.
+     *
+     * @param window the length of the window, ending now
+     * @return the task data of the window
+     * @throws UnsupportedOperationException if the window is not enabled
+     */
+    public ChronographData getTaskData(final Duration window)
+    {
+        final List<TaskInfo> roots = getTasks();
+        final List<TaskInfo> result = new ArrayList<>(roots.size());
+        for (TaskInfo task : roots)
+        {
+            result.add(WindowedTaskInfo.windowOf(task, window));
+        }
+        return new ChronographData(name, result);
+    }
+
+    /**
+     * Stop the scheduled rotation of the time window, if enabled. The data recorded so far is still available.
+     */
+    @Override
+    public void close()
+    {
+        if (rotation != null)
+        {
+            rotation.cancel(false);
+            lease.close();
+        }
+    }
+
+    private static void drain(final Node node)
+    {
+        node.histogram.drain();
+        for (Node child : node.children)
+        {
+            drain(child);
+        }
+    }
+
+    private MutableTaskInfo snapshot(final Node node, final MutableTaskInfo parent)
+    {
+        final SlidingWindowHistogram window = node.histogram.windowSnapshot();
+        final MutableTaskInfo taskInfo = window != null
+                ? new WindowedTaskInfo(node.name, parent, node.histogram.snapshot(), window)
+                : new HistogramTaskInfo(node.name, parent, node.histogram.snapshot());
+        for (Node child : node.children)
+        {
+            snapshot(child, taskInfo);
+        }
+        return taskInfo;
+    }
+
+    private MutableTaskInfo snapshotAndReset(final Node node, final MutableTaskInfo parent)
+    {
+        final MutableTaskInfo taskInfo = new HistogramTaskInfo(node.name, parent, node.histogram.snapshotAndReset());
+        for (Node child : node.children)
+        {
+            snapshotAndReset(child, taskInfo);
+        }
+        return taskInfo;
+    }
+
+    /**
+     * Outputs the data in a format that may change over time. Please use a {@link com.ethlo.chronograph.output.OutputFormatter} to have more control over the output
+     *
+     * @return A string representation of the performance data
+     */
+    @Override
+    public String toString()
+    {
+        return DEFAULT_FORMATTER.format(getTaskData());
+    }
+
+    private static final class Node
+    {
+        private final String name;
+        private final StripedHistogram histogram;
+        private final ConcurrentMap<String, Node> childrenByName = new ConcurrentHashMap<>();
+        private final List<Node> children = new CopyOnWriteArrayList<>();
+
+        private Node(final String name, final StripedHistogram histogram)
+        {
+            this.name = name;
+            this.histogram = histogram;
+        }
+
+        private Node child(final String name)
+        {
+            final Node existing = childrenByName.get(name);
+            if (existing != null)
+            {
+                return existing;
+            }
+
+            return childrenByName.computeIfAbsent(name, n ->
+            {
+                final Node created = new Node(n, histogram.emptyCopy());
+                children.add(created);
+                return created;
+            });
+        }
+    }
+
+    private static final class ThreadState
+    {
+        private final Deque<Node> stack = new ArrayDeque<>();
+        private final Map<Node, StripedHistogram.Stripe> stripes = new IdentityHashMap<>();
+        private long[] startTimestamps = new long[16];
+
+        private void push(final Node node)
+        {
+            final int depth = stack.size();
+            if (depth == startTimestamps.length)
+            {
+                startTimestamps = Arrays.copyOf(startTimestamps, depth * 2);
+            }
+            stack.push(node);
+            startTimestamps[depth] = System.nanoTime();
+        }
+
+        private boolean pop(final long ts)
+        {
+            final Node node = stack.pollFirst();
+            if (node == null)
+            {
+                return false;
+            }
+
+            final long elapsed = ts - startTimestamps[stack.size()];
+            StripedHistogram.Stripe stripe = stripes.get(node);
+            if (stripe == null)
+            {
+                stripe = node.histogram.newStripe();
+                stripes.put(node, stripe);
+            }
+            stripe.record(elapsed);
+            return true;
+        }
+    }
+}
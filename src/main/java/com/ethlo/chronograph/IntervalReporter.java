@@ -0,0 +1,79 @@
+package com.ethlo.chronograph;
+
+/*-
+ * #%L
+ * stopwatch
+ * %%
+ * Copyright (C) 2019 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.ethlo.sampler.SharedScheduler;
+
+/**
+ * Passes the task data of fixed intervals to a callback, scheduled on the {@link SharedScheduler}.
+ *
+ * @see ConcurrentChronograph#report(Duration, Consumer)
+ */
+public final class IntervalReporter implements AutoCloseable
+{
+    private final Supplier<ChronographData> source;
+    private final Consumer<ChronographData> callback;
+    private final SharedScheduler.Lease lease;
+    private final ScheduledFuture<?> scheduled;
+
+    IntervalReporter(final Supplier<ChronographData> source, final Duration interval, final Consumer<ChronographData> callback)
+    {
+        if (interval.isNegative() || interval.isZero())
+        {
+            throw new IllegalArgumentException("interval must be positive: " + interval);
+        }
+        this.source = source;
+        this.callback = callback;
+        this.lease = SharedScheduler.acquire();
+        this.scheduled = lease.executor().scheduleAtFixedRate(this::report, interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void report()
+    {
+        try
+        {
+            callback.accept(source.get());
+        }
+        catch (RuntimeException exc)
+        {
+            // An exception would cancel the schedule, so skip this interval and keep reporting
+            final Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, exc);
+        }
+    }
+
+    /**
+     * Stop the reporting. An interval that is being reported completes, but no further intervals are reported.
+     */
+    @Override
+    public void close()
+    {
+        scheduled.cancel(false);
+        lease.close();
+    }
+}
@@ -0,0 +1,45 @@
+package com.ethlo.chronograph;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * What to do with new samples when the memory reserved for sample storage is exhausted.
+ *
+ * @see CaptureConfig.Builder#offHeap(long, OverflowPolicy)
+ */
+public enum OverflowPolicy
+{
+    /**
+     * New samples are not stored. They are still included in the count, total, min, max and average of the task.
+     */
+    DISCARD,
+
+    /**
+     * New samples overwrite the stored samples of the task in a round-robin fashion, so the stored samples are
+     * biased towards recent ones.
+     */
+    OVERWRITE,
+
+    /**
+     * An {@link IllegalStateException} is thrown when a sample cannot be stored.
+     */
+    FAIL
+}
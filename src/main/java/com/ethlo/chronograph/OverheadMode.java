@@ -0,0 +1,49 @@
+package com.ethlo.chronograph;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Controls how the cost of the instrumentation itself is handled.
+ *
+ * @see CaptureConfig.Builder#overhead(OverheadMode)
+ * @see Calibration
+ */
+public enum OverheadMode
+{
+    /**
+     * Measurements include the instrumentation overhead, and no estimate is made. This is the default.
+     */
+    NONE,
+
+    /**
+     * Measurements include the instrumentation overhead, but an estimate of it is reported per task.
+     *
+     * @see TaskInfo#getInstrumentationOverhead()
+     */
+    ESTIMATE,
+
+    /**
+     * The estimated instrumentation overhead is subtracted from every measurement, and reported per task.
+     *
+     * @see TaskInfo#getInstrumentationOverhead()
+     */
+    SUBTRACT
+}
@@ -0,0 +1,110 @@
+package com.ethlo.chronograph;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.StringJoiner;
+
+/**
+ * A task name resolved once against a {@link Chronograph}, for use in hot code paths.
+ * <p>
+ * Starting a task through a handle does not allocate, and takes constant time regardless of the depth of the
+ * running tasks, as the task is looked up by the handle id in a cache held by its parent.
+ * Handles are interned per chronograph, for a bounded number of names, until {@link Chronograph#resetAll()}, and stay
+ * valid after it.
+ *
+ * <pre>
+ * final TaskHandle query = chronograph.task("db.query");
+ * for (...)
+ * {
+ *     query.start();
+ *     ...
+ *     query.stop();
+ * }
+ * </pre>
+ */
+public final class TaskHandle
+{
+    private final Chronograph chronograph;
+    private final int id;
+    private final String name;
+
+    TaskHandle(final Chronograph chronograph, final int id, final String name)
+    {
+        this.chronograph = chronograph;
+        this.id = id;
+        this.name = name;
+    }
+
+    /**
+     * Start the timing of the task
+     *
+     * @return True if the task was started, false if a task with the same name is already running
+     * @see Chronograph#start(String)
+     */
+    public boolean start()
+    {
+        return chronograph.startHandle(this);
+    }
+
+    /**
+     * Stop the task, if it is the most recently started running task
+     *
+     * @return True if the task was stopped, otherwise false
+     */
+    public boolean stop()
+    {
+        return chronograph.stopHandle(this);
+    }
+
+    /**
+     * Start the timing of the task, and return a scope that stops it when closed
+     *
+     * @return The scope of the running task
+     * @see Chronograph#scope(String)
+     */
+    public TaskScope scope()
+    {
+        return chronograph.scopeHandle(this);
+    }
+
+    /**
+     * Get the name of the task
+     *
+     * @return The task name
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    int getId()
+    {
+        return id;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new StringJoiner(", ", TaskHandle.class.getSimpleName() + "[", "]")
+                .add("name='" + name + "'")
+                .toString();
+    }
+}
@@ -67,6 +67,19 @@ public interface TaskInfo
      */
     PerformanceStatistics getStatistics();
 
+    /**
+     * Gets the performance statistics of the invocations within a recent time window, like the last five minutes.
+     *
+     * @param window the length of the window, ending now
+     * @return the performance statistics of the window
+     * @throws UnsupportedOperationException if the task does not keep windowed statistics
+     * @see CaptureConfig.Builder#window(Duration, int)
+     */
+    default PerformanceStatistics getStatistics(Duration window)
+    {
+        throw new UnsupportedOperationException("Task " + getName() + " does not keep windowed statistics");
+    }
+
     /**
      * Gets the time spent executing the task itself, excluding time spent in subtasks.
      *
@@ -81,6 +94,17 @@ public interface TaskInfo
      */
     Duration getSubtasksTime();
 
+    /**
+     * Gets the estimated time spent in the instrumentation itself, included in or subtracted from the time of this task.
+     *
+     * @return the estimated instrumentation overhead, or zero if it is not estimated
+     * @see OverheadMode
+     */
+    default Duration getInstrumentationOverhead()
+    {
+        return Duration.ZERO;
+    }
+
     /**
      * Gets the depth of the task within its hierarchy.
      *
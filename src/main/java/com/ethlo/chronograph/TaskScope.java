@@ -0,0 +1,83 @@
+package com.ethlo.chronograph;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.ethlo.chronograph.internal.MutableTaskInfo;
+
+/**
+ * A running task that is stopped when closed, for use with try-with-resources.
+ * <pre>
+ * try (TaskScope scope = chronograph.scope("parse"))
+ * {
+ *     ...
+ * }
+ * </pre>
+ * Scopes are reused per nesting level of the chronograph, so timing a block this way does not allocate. For the
+ * same reason, a scope must not be kept or used after it has been closed.
+ *
+ * @see Chronograph#scope(String)
+ * @see TaskHandle#scope()
+ */
+public final class TaskScope implements AutoCloseable
+{
+    /**
+     * Returned when the task could not be started, as a task with the same name is already running
+     */
+    static final TaskScope NOT_STARTED = new TaskScope(null);
+
+    private final Chronograph chronograph;
+    private MutableTaskInfo task;
+
+    TaskScope(final Chronograph chronograph)
+    {
+        this.chronograph = chronograph;
+    }
+
+    TaskScope open(final MutableTaskInfo task)
+    {
+        this.task = task;
+        return this;
+    }
+
+    /**
+     * Check whether the task of this scope was started and is still running
+     *
+     * @return True if this scope is open, otherwise false
+     */
+    public boolean isOpen()
+    {
+        return task != null;
+    }
+
+    /**
+     * Stop the task of this scope, and any tasks started after it that are still running
+     */
+    @Override
+    public void close()
+    {
+        final MutableTaskInfo running = task;
+        if (running != null)
+        {
+            task = null;
+            chronograph.stopScope(running);
+        }
+    }
+}
@@ -20,27 +20,57 @@ package com.ethlo.chronograph.context;
  * #L%
  */
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.WeakHashMap;
+import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.ethlo.Beta;
 import com.ethlo.chronograph.CaptureConfig;
 import com.ethlo.chronograph.Chronograph;
+import com.ethlo.chronograph.ChronographData;
 import com.ethlo.chronograph.OutputConfig;
 
 /**
  * Manages thread-local instances of {@link Chronograph}, ensuring that each thread
  * has its own separate instance. Provides configuration options for output and capture settings.
+ * <p>
+ * Lookups for the current thread go through a {@link ThreadLocal} and never lock. Instances are also kept in a
+ * concurrent registry for {@link #getAll()}, so creating or removing an instance does not lock either. The registry
+ * refers weakly to the threads, so the instance of a thread that ends without calling {@link #remove()} is dropped
+ * the next time the registry is used.
+ * </p>
+ * <p>
+ * For short-lived threads, like virtual threads, call {@link #release()} when the work of the thread is done, or
+ * submit the work through {@link #wrap(Runnable)}. The data of the thread is then queued without locking, and folded
+ * into a shared aggregate when {@link #getAggregate()} is called, so no per-thread instance is left behind.
+ * </p>
  */
 @Beta
 public class ChronographContext
 {
-    private final Map<Thread, Chronograph> instances = new WeakHashMap<>();
-    private OutputConfig outputConfig;
-    private CaptureConfig captureConfig;
+    private static final int MAX_PENDING = 64; // Queued releases before a releasing thread tries to fold them
+
+    private final ThreadLocal<Registration> current = new ThreadLocal<>();
+    private final Set<Registration> instances = ConcurrentHashMap.newKeySet();
+    private final ReferenceQueue<Thread> endedThreads = new ReferenceQueue<>();
+    private volatile OutputConfig outputConfig;
+    private volatile CaptureConfig captureConfig;
+
+    // Released data is queued by the releasing threads, and folded into the aggregate by whoever holds the lock
+    private final Queue<ChronographData> released = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ReentrantLock aggregateLock = new ReentrantLock();
+    private ChronographData aggregate;
 
 
     /**
@@ -59,10 +89,15 @@ public class ChronographContext
      */
     public Chronograph get()
     {
-        synchronized (instances)
+        Registration registration = current.get();
+        if (registration == null)
         {
-            return instances.computeIfAbsent(Thread.currentThread(), k -> Chronograph.create(getCaptureConfig()));
+            expungeEndedThreads();
+            registration = new Registration(Thread.currentThread(), Chronograph.create(getCaptureConfig()), endedThreads);
+            current.set(registration);
+            instances.add(registration);
         }
+        return registration.chronograph;
     }
 
     /**
@@ -70,9 +105,125 @@ public class ChronographContext
      */
     public void remove()
     {
-        synchronized (instances)
+        final Registration registration = current.get();
+        if (registration != null)
         {
-            instances.remove(Thread.currentThread());
+            current.remove();
+            deregister(registration);
+        }
+    }
+
+    /**
+     * Stops all tasks of the current thread's {@link Chronograph}, removes it from this context and adds a copy of
+     * its data to the shared aggregate, without waiting for other threads. The instance is then reset, which returns the memory of any off-heap samples. Does
+     * nothing if the current thread has no instance.
+     */
+    public void release()
+    {
+        final Registration registration = current.get();
+        if (registration == null)
+        {
+            return;
+        }
+
+        current.remove();
+        deregister(registration);
+        final Chronograph chronograph = registration.chronograph;
+        chronograph.stopAll();
+
+        final ChronographData data = chronograph.getTaskData();
+        if (data.isEmpty())
+        {
+            return;
+        }
+
+        // Copied, as the tasks of the instance are discarded by the reset
+        final ChronographData copy = ChronographData.mergeAll(null, List.of(data));
+        chronograph.resetAll();
+        released.add(copy);
+
+        // Bounds the queued data if the aggregate is rarely read, without ever waiting for the lock
+        if (pending.incrementAndGet() >= MAX_PENDING && aggregateLock.tryLock())
+        {
+            try
+            {
+                foldReleased();
+            } finally
+            {
+                aggregateLock.unlock();
+            }
+        }
+    }
+
+    private void foldReleased()
+    {
+        ChronographData data;
+        while ((data = released.poll()) != null)
+        {
+            pending.decrementAndGet();
+            aggregate = aggregate == null ? data : aggregate.mergeInto(null, data);
+        }
+    }
+
+    /**
+     * Returns a task that runs the given task and then calls {@link #release()} on the executing thread.
+     *
+     * @param task The task to wrap
+     * @return The wrapped task
+     */
+    public Runnable wrap(final Runnable task)
+    {
+        return () ->
+        {
+            try
+            {
+                task.run();
+            } finally
+            {
+                release();
+            }
+        };
+    }
+
+    /**
+     * Returns a task that calls the given task and then calls {@link #release()} on the executing thread.
+     *
+     * @param task The task to wrap
+     * @param <T>  The result type
+     * @return The wrapped task
+     */
+    public <T> Callable<T> wrap(final Callable<T> task)
+    {
+        return () ->
+        {
+            try
+            {
+                return task.call();
+            } finally
+            {
+                release();
+            }
+        };
+    }
+
+    /**
+     * Returns a copy of the combined data of all instances released with {@link #release()} so far. The copy is not
+     * affected by later releases.
+     *
+     * @return The aggregated data, empty if nothing has been released
+     */
+    public ChronographData getAggregate()
+    {
+        aggregateLock.lock();
+        try
+        {
+            foldReleased();
+
+            // The aggregate itself is updated in place by later folds
+            return aggregate != null ? ChronographData.mergeAll(null, List.of(aggregate)) : new ChronographData(null, List.of());
+        } finally
+        {
+            aggregateLock.unlock();
         }
     }
 
@@ -130,6 +281,43 @@ public class ChronographContext
      */
     public List<Chronograph> getAll()
     {
-        return new ArrayList<>(instances.values());
+        expungeEndedThreads();
+        final List<Chronograph> result = new ArrayList<>(instances.size());
+        for (Registration registration : instances)
+        {
+            result.add(registration.chronograph);
+        }
+        return result;
+    }
+
+    private void deregister(final Registration registration)
+    {
+        instances.remove(registration);
+
+        // No longer needs to be enqueued when the thread ends
+        registration.clear();
+    }
+
+    private void expungeEndedThreads()
+    {
+        Reference<? extends Thread> ended;
+        while ((ended = endedThreads.poll()) != null)
+        {
+            instances.remove(ended);
+        }
+    }
+
+    /**
+     * The instance of a thread, referring weakly to the thread. Compared by identity in the registry.
+     */
+    private static final class Registration extends WeakReference<Thread>
+    {
+        private final Chronograph chronograph;
+
+        private Registration(final Thread thread, final Chronograph chronograph, final ReferenceQueue<Thread> queue)
+        {
+            super(thread, queue);
+            this.chronograph = chronograph;
+        }
     }
 }
@@ -0,0 +1,128 @@
+package com.ethlo.chronograph.internal;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+
+/**
+ * Children of a task resolved by task handle id, so a known task can be started without hashing the name or allocating.
+ * <p>
+ * The ids are kept in a small open-addressing table, so the memory used depends on the number of children of the task
+ * rather than on the largest handle id in use. At most {@value #MAX_SIZE} ids are cached, further children are
+ * resolved by name.
+ * </p>
+ */
+public final class ChildCache
+{
+    public static final int MAX_SIZE = 1_024;
+
+    private static final int FREE = -1;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] ids;
+    private MutableTaskInfo[] children;
+    private int size;
+
+    public MutableTaskInfo get(final int id)
+    {
+        if (size == 0)
+        {
+            return null;
+        }
+
+        final int mask = ids.length - 1;
+        for (int index = slot(id, mask); ; index = (index + 1) & mask)
+        {
+            final int key = ids[index];
+            if (key == id)
+            {
+                return children[index];
+            }
+            if (key == FREE)
+            {
+                return null;
+            }
+        }
+    }
+
+    public void put(final int id, final MutableTaskInfo child)
+    {
+        if (size >= MAX_SIZE)
+        {
+            return;
+        }
+        if (ids == null)
+        {
+            allocate(INITIAL_CAPACITY);
+        }
+        else if ((size + 1) * 2 > ids.length)
+        {
+            final int[] oldIds = ids;
+            final MutableTaskInfo[] oldChildren = children;
+            allocate(oldIds.length * 2);
+            for (int i = 0; i < oldIds.length; i++)
+            {
+                if (oldIds[i] != FREE)
+                {
+                    insert(oldIds[i], oldChildren[i]);
+                }
+            }
+        }
+        insert(id, child);
+    }
+
+    private void allocate(final int capacity)
+    {
+        ids = new int[capacity];
+        Arrays.fill(ids, FREE);
+        children = new MutableTaskInfo[capacity];
+        size = 0;
+    }
+
+    private void insert(final int id, final MutableTaskInfo child)
+    {
+        final int mask = ids.length - 1;
+        int index = slot(id, mask);
+        while (ids[index] != FREE && ids[index] != id)
+        {
+            index = (index + 1) & mask;
+        }
+        if (ids[index] == FREE)
+        {
+            ids[index] = id;
+            size++;
+        }
+        children[index] = child;
+    }
+
+    private static int slot(final int id, final int mask)
+    {
+        // Multiplying by an odd constant maps the low bits of sequential ids to distinct, scattered slots
+        return id * 0x9E3779B9 & mask;
+    }
+
+    public void clear()
+    {
+        ids = null;
+        children = null;
+        size = 0;
+    }
+}
@@ -0,0 +1,147 @@
+package com.ethlo.chronograph.internal;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.time.Duration;
+
+import com.ethlo.chronograph.TaskInfo;
+import com.ethlo.chronograph.internal.util.LogLinearHistogram;
+import com.ethlo.chronograph.statistics.PerformanceStatistics;
+
+/**
+ * Task info that aggregates its samples into a {@link LogLinearHistogram} instead of keeping every raw value,
+ * so memory use stays constant regardless of the number of invocations.
+ */
+public class HistogramTaskInfo extends MutableTaskInfo
+{
+    private final LogLinearHistogram histogram;
+
+    // Invocations of merged tasks that had no sample in the histogram, like discarded or rate-limited samples
+    private long uncoveredInvocations;
+    private long uncoveredTime;
+
+    public HistogramTaskInfo(final String name, final MutableTaskInfo parent, final double relativeError)
+    {
+        this(name, parent, new LogLinearHistogram(relativeError));
+    }
+
+    public HistogramTaskInfo(final String name, final MutableTaskInfo parent, final LogLinearHistogram histogram)
+    {
+        super(name, parent);
+        this.histogram = histogram;
+    }
+
+    @Override
+    void logElapsedDuration(final long duration)
+    {
+        histogram.record(duration);
+        modified();
+    }
+
+    @Override
+    public Duration getTime()
+    {
+        return Duration.ofNanos(histogram.sum() + uncoveredTime);
+    }
+
+    @Override
+    public long getInvocations()
+    {
+        return histogram.size() + uncoveredInvocations;
+    }
+
+    @Override
+    public long getSampleSize()
+    {
+        return histogram.size();
+    }
+
+    @Override
+    PerformanceStatistics computeStatistics()
+    {
+        return new PerformanceStatistics(histogram, getInvocations(), getTime().toNanos());
+    }
+
+    @Override
+    MutableTaskInfo emptyCopy(final MutableTaskInfo parent)
+    {
+        return new HistogramTaskInfo(getName(), parent, histogram.getRelativeError());
+    }
+
+    private void merge(final LogLinearHistogram other)
+    {
+        if (other.getRelativeError() == histogram.getRelativeError())
+        {
+            histogram.merge(other);
+        }
+        else
+        {
+            histogram.merge(other.withRelativeError(histogram.getRelativeError()));
+        }
+    }
+
+    @Override
+    public LogLinearHistogram snapshotHistogram()
+    {
+        return histogram.copy();
+    }
+
+    public LogLinearHistogram getHistogram()
+    {
+        return histogram;
+    }
+
+    @Override
+    void mergeData(final TaskInfo other)
+    {
+        final long countBefore = histogram.size();
+        final long sumBefore = histogram.sum();
+        mergeSamples(other);
+
+        // The totals are taken from the task, as the samples may only cover some of the invocations
+        uncoveredInvocations += Math.max(0, other.getInvocations() - (histogram.size() - countBefore));
+        uncoveredTime += Math.max(0, other.getTime().toNanos() - (histogram.sum() - sumBefore));
+    }
+
+    private void mergeSamples(final TaskInfo other)
+    {
+        if (other instanceof HistogramTaskInfo histogramTaskInfo)
+        {
+            merge(histogramTaskInfo.histogram);
+        }
+        else if (other instanceof TaskSnapshot snapshot)
+        {
+            merge(snapshot.getHistogram());
+        }
+        else if (other instanceof SpillTaskInfo spillTaskInfo)
+        {
+            spillTaskInfo.getLog().forEach(histogram::record);
+        }
+        else if (other instanceof MutableTaskInfo mutableTaskInfo && mutableTaskInfo.hasReleasedSamples())
+        {
+            merge(mutableTaskInfo.summarizeSamples());
+        }
+        else if (other instanceof MutableTaskInfo mutableTaskInfo)
+        {
+            mutableTaskInfo.getData().forEachLong(histogram::record);
+        }
+    }
+}
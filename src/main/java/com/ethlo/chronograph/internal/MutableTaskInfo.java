@@ -22,25 +22,40 @@ package com.ethlo.chronograph.internal;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.StringJoiner;
 
 import com.ethlo.chronograph.TaskInfo;
 import com.ethlo.chronograph.internal.util.IndexedCollection;
 import com.ethlo.chronograph.internal.util.IndexedCollectionStatistics;
+import com.ethlo.chronograph.internal.util.LogLinearHistogram;
 import com.ethlo.chronograph.internal.util.LongList;
+import com.ethlo.chronograph.internal.util.OffHeapLongList;
+import com.ethlo.chronograph.internal.util.RunningStatistics;
 import com.ethlo.chronograph.statistics.PerformanceStatistics;
 
 public class MutableTaskInfo implements TaskInfo
 {
+    /**
+     * The relative error of the histograms summarizing the samples of a task for snapshots
+     */
+    public static final double SNAPSHOT_RELATIVE_ERROR = 0.01;
+
     private final IndexedCollection<Long> data;
     private final String name;
     private final MutableTaskInfo parent;
     private final List<MutableTaskInfo> children = new ArrayList<>(0);
+    private final ChildCache childCache = new ChildCache();
     protected boolean running = false;
     private long taskStartTimestamp;
+    private long instrumentationOverhead;
+    private final RunningStatistics runningStatistics = new RunningStatistics();
+    private PerformanceStatistics statistics;
+    private LogLinearHistogram summary; // Only kept once a snapshot has been taken
+    private LogLinearHistogram releasedSamples; // Off-heap samples whose memory has been returned by release()
 
     public MutableTaskInfo(final String name, final MutableTaskInfo parent)
     {
@@ -56,6 +71,9 @@ public class MutableTaskInfo implements TaskInfo
         {
             parent.children.add(this);
         }
+
+        // The statistics are maintained as samples are recorded, so samples given up front are counted here
+        data.forEachLong(runningStatistics::record);
     }
 
     public boolean start()
@@ -74,8 +92,8 @@ public class MutableTaskInfo implements TaskInfo
         if (running)
         {
             final long duration = ts - taskStartTimestamp;
-            logElapsedDuration(duration);
             running = false;
+            logElapsedDuration(duration, ts);
             return true;
         }
         return false;
@@ -83,7 +101,7 @@ public class MutableTaskInfo implements TaskInfo
 
     public Duration getTime()
     {
-        return Duration.ofNanos(data.stream().reduce(0L, Long::sum));
+        return Duration.ofNanos(runningStatistics.getSum());
     }
 
     @Override
@@ -95,13 +113,13 @@ public class MutableTaskInfo implements TaskInfo
     @Override
     public long getInvocations()
     {
-        return data.size();
+        return runningStatistics.getCount();
     }
 
     @Override
     public long getSampleSize()
     {
-        return data.size();
+        return releasedSamples != null ? releasedSamples.size() + data.size() : data.size();
     }
 
     public boolean isRunning()
@@ -109,17 +127,96 @@ public class MutableTaskInfo implements TaskInfo
         return running;
     }
 
+    /**
+     * Record the duration of an invocation that stopped at the given time. The timestamp is only used by tasks that
+     * keep data by time, so they do not have to read the clock again.
+     */
+    void logElapsedDuration(final long duration, final long timestamp)
+    {
+        logElapsedDuration(duration);
+    }
+
     void logElapsedDuration(final long duration)
     {
         data.add(duration);
+        runningStatistics.record(duration);
+        summarize(duration);
+        modified();
+    }
+
+    /**
+     * Add a sample to the summary used for snapshots, if one has been taken
+     */
+    void summarize(final long duration)
+    {
+        if (summary != null)
+        {
+            summary.record(duration);
+        }
+    }
+
+    /**
+     * Get a copy of a histogram summarizing the samples of this task, for taking a snapshot. The first call makes a
+     * pass over the samples, after which the summary is kept up to date as samples are recorded, so the cost of later
+     * calls only depends on the number of histogram buckets.
+     *
+     * @return A histogram the caller is free to modify
+     */
+    public LogLinearHistogram snapshotHistogram()
+    {
+        if (summary == null)
+        {
+            summary = summarizeSamples();
+        }
+        return summary.copy();
+    }
+
+    LogLinearHistogram summarizeSamples()
+    {
+        final LogLinearHistogram histogram = releasedSamples != null ? releasedSamples.copy() : new LogLinearHistogram(SNAPSHOT_RELATIVE_ERROR);
+        data.forEachLong(histogram::record);
+        return histogram;
+    }
+
+    /**
+     * Invalidate the cached statistics. Must be called whenever data affecting the statistics changes.
+     */
+    void modified()
+    {
+        statistics = null;
+    }
+
+    /**
+     * Get the statistics of this task, which are cached until new data is recorded
+     *
+     * @return The statistics
+     */
+    public final PerformanceStatistics getStatistics()
+    {
+        PerformanceStatistics result = statistics;
+        if (result == null)
+        {
+            result = computeStatistics();
+            statistics = result;
+        }
+        return result;
     }
 
-    public PerformanceStatistics getStatistics()
+    PerformanceStatistics computeStatistics()
     {
-        final IndexedCollectionStatistics stats = new IndexedCollectionStatistics(data);
+        if (releasedSamples != null)
+        {
+            return new PerformanceStatistics(summarizeSamples(), getInvocations(), getTime().toNanos());
+        }
+        final IndexedCollectionStatistics stats = new IndexedCollectionStatistics(data, runningStatistics);
         return new PerformanceStatistics(stats, getInvocations(), getTime().toNanos());
     }
 
+    RunningStatistics getRunningStatistics()
+    {
+        return runningStatistics;
+    }
+
     public long getTaskStartTimestamp()
     {
         return taskStartTimestamp;
@@ -130,6 +227,11 @@ public class MutableTaskInfo implements TaskInfo
         return data;
     }
 
+    public ChildCache getChildCache()
+    {
+        return childCache;
+    }
+
     public void addChild(MutableTaskInfo newTask)
     {
         children.add(newTask);
@@ -146,9 +248,12 @@ public class MutableTaskInfo implements TaskInfo
     @Override
     public Duration getSubtasksTime()
     {
-        return children.stream()
-                .map(MutableTaskInfo::getTime)
-                .reduce(Duration.ZERO, Duration::plus);
+        long nanos = 0;
+        for (MutableTaskInfo child : children)
+        {
+            nanos += child.getTime().toNanos();
+        }
+        return Duration.ofNanos(nanos);
     }
 
     @Override
@@ -197,6 +302,12 @@ public class MutableTaskInfo implements TaskInfo
         return parent;
     }
 
+    /**
+     * Merge the data and subtasks of the other task into this task. Subtasks that only exist in the other task are
+     * moved to this task, so the other task should not be used afterwards.
+     *
+     * @param other The task to merge into this task
+     */
     public void merge(MutableTaskInfo other)
     {
         if (other == null)
@@ -204,44 +315,158 @@ public class MutableTaskInfo implements TaskInfo
             throw new IllegalArgumentException("Cannot merge with null TaskInfo.");
         }
 
-        // Merge task times (sum the durations)
-        this.data.addAll(other.getData()); // Add all data entries from the other TaskInfo
+        mergeFrom(other);
 
-        // Merge the children
-        for (TaskInfo child : other.getSubtasks())
+        // Index the children by name, so each child of the other task is matched in constant time
+        final Map<String, MutableTaskInfo> childrenByName = new HashMap<>();
+        for (MutableTaskInfo child : children)
         {
-            // Check if the child task already exists in the current task's children
-            Optional<MutableTaskInfo> existingChildOpt = this.children.stream()
-                    .filter(existingChild -> existingChild.getName().equals(child.getName()))
-                    .findFirst();
+            childrenByName.putIfAbsent(child.getName(), child);
+        }
 
-            if (existingChildOpt.isPresent())
+        for (MutableTaskInfo child : other.children)
+        {
+            final MutableTaskInfo existingChild = childrenByName.get(child.getName());
+            if (existingChild != null)
             {
-                // Merge the data entries for the existing child
-                MutableTaskInfo existingChild = existingChildOpt.get();
-                existingChild.mergeData(child);  // Merge data for this specific child task
+                existingChild.merge(child);
             }
             else
             {
-                // If the child doesn't exist, add the child task
-                this.addChild((MutableTaskInfo) child);
+                this.addChild(child);
+                childrenByName.put(child.getName(), child);
             }
         }
     }
 
-    private void mergeData(TaskInfo other)
+    /**
+     * Merge the data of the other task into this task, without the subtasks
+     */
+    void mergeFrom(TaskInfo other)
+    {
+        mergeData(other);
+        instrumentationOverhead += other.getInstrumentationOverhead().toNanos();
+        summary = null;
+        modified();
+    }
+
+    /**
+     * Create an empty task of the same kind as this task, to merge the data of several tasks into
+     *
+     * @param parent The parent of the new task
+     * @return The new task
+     */
+    MutableTaskInfo emptyCopy(MutableTaskInfo parent)
+    {
+        return new MutableTaskInfo(name, parent);
+    }
+
+    List<MutableTaskInfo> children()
+    {
+        return children;
+    }
+
+    void mergeData(TaskInfo other)
     {
         if (other == null)
         {
             return; // If the other task is null, nothing to merge
         }
+        if (other instanceof HistogramTaskInfo || other instanceof TaskSnapshot)
+        {
+            throw new IllegalArgumentException("Cannot merge histogram data of task " + other.getName() + " into raw samples");
+        }
+        if (other instanceof SpillTaskInfo)
+        {
+            throw new IllegalArgumentException("Cannot merge spilled samples of task " + other.getName() + " into in-memory samples");
+        }
 
         // Merge the task data (elapsed times)
-        this.data.addAll(((MutableTaskInfo) other).getData());
+        final MutableTaskInfo otherTask = (MutableTaskInfo) other;
+        final IndexedCollection<Long> otherData = otherTask.getData();
+        this.data.addAll(otherData);
+        mergeTotals(otherTask);
+    }
+
+    /**
+     * Merge the invocation count and total time of the other task into the running statistics. These are taken from
+     * the task rather than from its samples, which may only be some of the invocations, like when samples are
+     * discarded at a memory limit or kept in a reservoir.
+     */
+    void mergeTotals(final MutableTaskInfo other)
+    {
+        final long invocations = other.getInvocations();
+        if (other.runningStatistics.getCount() == invocations)
+        {
+            // The running statistics cover every invocation, so they can be combined without a pass over the samples
+            runningStatistics.merge(other.runningStatistics);
+            return;
+        }
+
+        // Min, max and variance can only be estimated from the invocations that are covered
+        RunningStatistics covered = other.runningStatistics;
+        if (covered.isEmpty())
+        {
+            covered = new RunningStatistics();
+            other.getData().forEachLong(covered::record);
+        }
+        runningStatistics.merge(covered.withTotals(invocations, other.getTime().toNanos()));
+    }
+
+    /**
+     * Release any resources held by this task, like scheduled sampling. The collected data is still available, but
+     * off-heap samples are replaced by a histogram on the heap so their memory is returned to its limit.
+     */
+    public void release()
+    {
+        if (data instanceof OffHeapLongList && !data.isEmpty())
+        {
+            releasedSamples = summarizeSamples();
+            data.release();
+            modified();
+        }
+    }
+
+    /**
+     * Release any resources held by this task, as it is dropped by its chronograph
+     *
+     * @param recycle Whether the samples can be dropped and their memory reused, as no references to this task are
+     *                held elsewhere. Otherwise, the data is kept available, like after {@link #release()}.
+     */
+    public void discard(final boolean recycle)
+    {
+        if (recycle)
+        {
+            data.release();
+            releasedSamples = null;
+            summary = null;
+        }
+        release();
+    }
+
+    /**
+     * Whether some samples of this task have been released to a histogram by {@link #release()}
+     *
+     * @return True if {@link #getData()} no longer holds all retained samples
+     */
+    public boolean hasReleasedSamples()
+    {
+        return releasedSamples != null;
+    }
+
+    @Override
+    public Duration getInstrumentationOverhead()
+    {
+        return Duration.ofNanos(instrumentationOverhead);
+    }
+
+    public void addInstrumentationOverhead(long overhead)
+    {
+        instrumentationOverhead += overhead;
     }
 
     public void addMeasurement(long sample)
     {
-        this.data.add(sample);
+        logElapsedDuration(sample);
     }
 }
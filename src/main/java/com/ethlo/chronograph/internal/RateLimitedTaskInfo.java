@@ -23,23 +23,48 @@ package com.ethlo.chronograph.internal;
 import java.time.Duration;
 import java.util.concurrent.ScheduledExecutorService;
 
+import com.ethlo.chronograph.TaskInfo;
 import com.ethlo.chronograph.internal.util.IndexedCollectionStatistics;
 import com.ethlo.chronograph.statistics.PerformanceStatistics;
-import com.ethlo.sampler.SampleRater;
 import com.ethlo.sampler.ScheduledSampleRater;
 
 public class RateLimitedTaskInfo extends MutableTaskInfo
 {
-    private final SampleRater<Long> sampleRater;
-    private int totalInvocations;
+    private final ScheduledSampleRater<Long> sampleRater;
+    private long totalInvocations;
     private long totalElapsed;
 
+    public RateLimitedTaskInfo(final String name, Duration minInterval, final MutableTaskInfo parent)
+    {
+        super(name, parent);
+        this.sampleRater = new ScheduledSampleRater<>(minInterval, prg -> logElapsedDuration(prg.progress()));
+    }
+
     public RateLimitedTaskInfo(final String name, Duration minInterval, final ScheduledExecutorService scheduledExecutorService, final MutableTaskInfo parent)
     {
         super(name, parent);
         this.sampleRater = new ScheduledSampleRater<>(scheduledExecutorService, minInterval, prg -> logElapsedDuration(prg.progress()));
     }
 
+    /**
+     * Create a task for merged data, which is not sampled and cannot be started
+     */
+    private RateLimitedTaskInfo(final String name, final MutableTaskInfo parent)
+    {
+        super(name, parent);
+        this.sampleRater = null;
+    }
+
+    @Override
+    public boolean start()
+    {
+        if (sampleRater == null)
+        {
+            throw new IllegalStateException("Task " + getName() + " holds merged data and cannot be started");
+        }
+        return super.start();
+    }
+
     @Override
     public boolean stopped(final long ts)
     {
@@ -53,8 +78,24 @@ public class RateLimitedTaskInfo extends MutableTaskInfo
         totalElapsed += elapsed;
         sampleRater.update(elapsed);
         running = false;
+        modified();
 
-        return false;
+        return true;
+    }
+
+    @Override
+    public void release()
+    {
+        if (sampleRater != null)
+        {
+            sampleRater.close();
+        }
+    }
+
+    @Override
+    MutableTaskInfo emptyCopy(final MutableTaskInfo parent)
+    {
+        return new RateLimitedTaskInfo(getName(), parent);
     }
 
     @Override
@@ -70,9 +111,17 @@ public class RateLimitedTaskInfo extends MutableTaskInfo
     }
 
     @Override
-    public PerformanceStatistics getStatistics()
+    void mergeData(final TaskInfo other)
+    {
+        super.mergeData(other);
+        totalInvocations += other.getInvocations();
+        totalElapsed += other.getTime().toNanos();
+    }
+
+    @Override
+    PerformanceStatistics computeStatistics()
     {
-        final IndexedCollectionStatistics stats = new IndexedCollectionStatistics(getData());
+        final IndexedCollectionStatistics stats = new IndexedCollectionStatistics(getData(), getRunningStatistics());
         return new PerformanceStatistics(stats, totalInvocations, totalElapsed);
     }
 }
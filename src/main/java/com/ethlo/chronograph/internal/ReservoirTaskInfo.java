@@ -0,0 +1,232 @@
+package com.ethlo.chronograph.internal;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.ethlo.chronograph.TaskInfo;
+import com.ethlo.chronograph.internal.util.IndexedCollection;
+import com.ethlo.chronograph.internal.util.IndexedCollectionStatistics;
+import com.ethlo.chronograph.internal.util.LogLinearHistogram;
+import com.ethlo.chronograph.internal.util.LongList;
+import com.ethlo.chronograph.statistics.PerformanceStatistics;
+
+/**
+ * Task info that keeps a uniform random sample of a fixed size of all its invocations, using reservoir sampling
+ * (Algorithm L). Unlike rate-limited capture, every invocation has the same chance to be part of the sample,
+ * regardless of when it happened. Count and total time are tracked for all invocations.
+ */
+public class ReservoirTaskInfo extends MutableTaskInfo
+{
+    private final int capacity;
+    private long totalInvocations;
+    private long totalElapsed;
+    private double weight;
+    private long nextReplacement;
+
+    public ReservoirTaskInfo(final String name, final MutableTaskInfo parent, final int capacity)
+    {
+        super(name, parent, new LongList(Math.min(capacity, 1_000)));
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity cannot be less than 1");
+        }
+        this.capacity = capacity;
+    }
+
+    private static double random()
+    {
+        // Range (0, 1], to stay clear of log(0)
+        return 1D - ThreadLocalRandom.current().nextDouble();
+    }
+
+    @Override
+    void logElapsedDuration(final long duration)
+    {
+        totalInvocations++;
+        totalElapsed += duration;
+        offer(duration);
+        modified();
+    }
+
+    private void offer(final long duration)
+    {
+        final IndexedCollection<Long> data = getData();
+        if (data.size() < capacity)
+        {
+            data.add(duration);
+            if (data.size() == capacity)
+            {
+                weight = Math.exp(Math.log(random()) / capacity);
+                scheduleNextReplacement();
+            }
+        }
+        else if (totalInvocations == nextReplacement)
+        {
+            data.setLong(ThreadLocalRandom.current().nextInt(capacity), duration);
+            weight *= Math.exp(Math.log(random()) / capacity);
+            scheduleNextReplacement();
+        }
+    }
+
+    private void scheduleNextReplacement()
+    {
+        nextReplacement = totalInvocations + (long) Math.floor(Math.log(random()) / Math.log1p(-weight)) + 1;
+    }
+
+    @Override
+    void mergeData(final TaskInfo other)
+    {
+        if (other instanceof ReservoirTaskInfo reservoir)
+        {
+            mergeReservoir(reservoir);
+        }
+        else if (other instanceof MutableTaskInfo mutableTaskInfo)
+        {
+            mergeReservoir(sample(mutableTaskInfo));
+        }
+    }
+
+    /**
+     * Reduce the samples of another kind of task to a reservoir of the same capacity, representing all the
+     * invocations of that task, as its samples may only cover some of them
+     */
+    private ReservoirTaskInfo sample(final MutableTaskInfo other)
+    {
+        final ReservoirTaskInfo result = new ReservoirTaskInfo(getName(), null, capacity);
+        if (other instanceof SpillTaskInfo spillTaskInfo)
+        {
+            spillTaskInfo.getLog().forEach(result::logElapsedDuration);
+        }
+        else
+        {
+            other.getData().forEachLong(result::logElapsedDuration);
+        }
+        result.totalInvocations = Math.max(result.totalInvocations, other.getInvocations());
+        result.totalElapsed = Math.max(result.totalElapsed, other.getTime().toNanos());
+        return result;
+    }
+
+    /**
+     * Draw a new sample from the two reservoirs, where each value is picked from a reservoir with a probability
+     * proportional to the number of invocations it represents.
+     */
+    private void mergeReservoir(final ReservoirTaskInfo other)
+    {
+        final long[] own = toArray(getData());
+        final long[] theirs = toArray(other.getData());
+        int ownRemaining = own.length;
+        int theirRemaining = theirs.length;
+        final double ownProbability = totalInvocations / (double) (totalInvocations + other.totalInvocations);
+
+        final IndexedCollection<Long> data = getData();
+        final int size = Math.min(capacity, own.length + theirs.length);
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < size; i++)
+        {
+            final boolean pickOwn = theirRemaining == 0 || (ownRemaining > 0 && random.nextDouble() < ownProbability);
+            final long value;
+            if (pickOwn)
+            {
+                value = take(own, ownRemaining--, random);
+            }
+            else
+            {
+                value = take(theirs, theirRemaining--, random);
+            }
+
+            if (i < data.size())
+            {
+                data.setLong(i, value);
+            }
+            else
+            {
+                data.add(value);
+            }
+        }
+
+        totalInvocations += other.totalInvocations;
+        totalElapsed += other.totalElapsed;
+        if (data.size() == capacity)
+        {
+            // The weight is the largest of the random keys of the values kept out of all invocations so far, which
+            // is approximated by its expected value rather than drawn as if the reservoir had just filled up
+            weight = capacity / (double) (totalInvocations + 1);
+            scheduleNextReplacement();
+        }
+    }
+
+    private static long[] toArray(final IndexedCollection<Long> data)
+    {
+        final long[] values = new long[(int) data.size()];
+        data.copyTo(values, 0, values.length);
+        return values;
+    }
+
+    private static long take(final long[] values, final int remaining, final ThreadLocalRandom random)
+    {
+        // Swap a random remaining value to the end of the remaining range, then shrink the range
+        final int index = random.nextInt(remaining);
+        final long value = values[index];
+        values[index] = values[remaining - 1];
+        return value;
+    }
+
+    @Override
+    MutableTaskInfo emptyCopy(final MutableTaskInfo parent)
+    {
+        return new ReservoirTaskInfo(getName(), parent, capacity);
+    }
+
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    @Override
+    public Duration getTime()
+    {
+        return Duration.ofNanos(totalElapsed);
+    }
+
+    @Override
+    public long getInvocations()
+    {
+        return totalInvocations;
+    }
+
+    /**
+     * The reservoir is bounded, so the summary is made from the current sample every time
+     */
+    @Override
+    public LogLinearHistogram snapshotHistogram()
+    {
+        return summarizeSamples();
+    }
+
+    @Override
+    PerformanceStatistics computeStatistics()
+    {
+        final IndexedCollectionStatistics stats = new IndexedCollectionStatistics(getData());
+        return new PerformanceStatistics(stats, totalInvocations, totalElapsed);
+    }
+}
@@ -0,0 +1,150 @@
+package com.ethlo.chronograph.internal;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.nio.file.Path;
+
+import com.ethlo.chronograph.TaskInfo;
+import com.ethlo.chronograph.internal.util.LogLinearHistogram;
+import com.ethlo.chronograph.internal.util.MappedLongLog;
+import com.ethlo.chronograph.statistics.PerformanceStatistics;
+
+/**
+ * Task info that appends its samples to a {@link MappedLongLog} on disk, so the number of samples is limited by the
+ * disk space rather than the heap. Count, total, min, max, mean and standard deviation are exact, while percentiles
+ * are computed by streaming the log into a {@link LogLinearHistogram} with a relative error of
+ * {@value #PERCENTILE_RELATIVE_ERROR}.
+ */
+public class SpillTaskInfo extends MutableTaskInfo
+{
+    public static final double PERCENTILE_RELATIVE_ERROR = 0.001;
+
+    private final Path directory;
+    private final MappedLongLog log;
+    private LogLinearHistogram deletedSamples; // Samples of a deleted log file, kept for references to this task
+
+    /**
+     * Create a task that spills its samples to a file in the given directory. The file is created with the first
+     * sample.
+     *
+     * @param name      The name of the task
+     * @param parent    The parent task, or null
+     * @param directory The directory of the sample file
+     */
+    public SpillTaskInfo(final String name, final MutableTaskInfo parent, final Path directory)
+    {
+        super(name, parent);
+        this.directory = directory;
+        this.log = new MappedLongLog(directory, name.replaceAll("[^A-Za-z0-9_.-]", "_") + "-");
+    }
+
+    @Override
+    void logElapsedDuration(final long duration)
+    {
+        log.add(duration);
+        getRunningStatistics().record(duration);
+        summarize(duration);
+        modified();
+    }
+
+    @Override
+    public long getSampleSize()
+    {
+        return deletedSamples != null ? deletedSamples.size() : log.size();
+    }
+
+    @Override
+    PerformanceStatistics computeStatistics()
+    {
+        final LogLinearHistogram histogram = deletedSamples != null ? deletedSamples.copy() : new LogLinearHistogram(PERCENTILE_RELATIVE_ERROR);
+        log.forEach(histogram::record);
+        return new PerformanceStatistics(histogram, getInvocations(), getTime().toNanos());
+    }
+
+    /**
+     * Create an empty task with a new log in the same directory as this task
+     */
+    @Override
+    MutableTaskInfo emptyCopy(final MutableTaskInfo parent)
+    {
+        return new SpillTaskInfo(getName(), parent, directory);
+    }
+
+    @Override
+    LogLinearHistogram summarizeSamples()
+    {
+        final LogLinearHistogram histogram = deletedSamples != null ? deletedSamples.withRelativeError(SNAPSHOT_RELATIVE_ERROR) : new LogLinearHistogram(SNAPSHOT_RELATIVE_ERROR);
+        log.forEach(histogram::record);
+        return histogram;
+    }
+
+    public MappedLongLog getLog()
+    {
+        return log;
+    }
+
+    @Override
+    void mergeData(final TaskInfo other)
+    {
+        if (other instanceof HistogramTaskInfo || other instanceof TaskSnapshot)
+        {
+            throw new IllegalArgumentException("Cannot merge histogram data of task " + other.getName() + " into raw samples");
+        }
+        if (other instanceof SpillTaskInfo spillTaskInfo)
+        {
+            spillTaskInfo.log.forEach(log::add);
+            mergeTotals(spillTaskInfo);
+        }
+        else if (other instanceof MutableTaskInfo mutableTaskInfo)
+        {
+            mutableTaskInfo.getData().forEachLong(log::add);
+            mergeTotals(mutableTaskInfo);
+        }
+    }
+
+    /**
+     * Close the log file and unmap it. The samples are still available, and the file is opened again when they are
+     * read.
+     */
+    @Override
+    public void release()
+    {
+        super.release();
+        log.close();
+    }
+
+    /**
+     * Delete the log file. Unless the samples are recycled, they are first summarized in a histogram, so the task
+     * still has its data.
+     */
+    @Override
+    public void discard(final boolean recycle)
+    {
+        if (!recycle && log.size() > 0)
+        {
+            deletedSamples = new LogLinearHistogram(PERCENTILE_RELATIVE_ERROR);
+            log.forEach(deletedSamples::record);
+        }
+        super.discard(recycle);
+        log.delete();
+        modified();
+    }
+}
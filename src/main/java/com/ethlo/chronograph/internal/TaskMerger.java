@@ -0,0 +1,266 @@
+package com.ethlo.chronograph.internal;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.ethlo.chronograph.TaskInfo;
+
+/**
+ * Merges task trees by name, with the tasks of every level indexed in a hash map, so the cost is linear in the
+ * total number of tasks.
+ */
+public final class TaskMerger
+{
+    private TaskMerger()
+    {
+    }
+
+    /**
+     * Merge several task trees into a new tree in a single pass. The input tasks are left untouched.
+     *
+     * @param inputs The root tasks of each tree
+     * @return The root tasks of the merged tree, in the order they are first seen in the inputs
+     */
+    public static List<TaskInfo> merge(final List<List<TaskInfo>> inputs)
+    {
+        final List<TaskInfo> roots = new ArrayList<>();
+        for (List<TaskInfo> input : inputs)
+        {
+            roots.addAll(input);
+        }
+
+        final List<TaskInfo> result = new ArrayList<>();
+        for (List<TaskInfo> group : groupByName(roots).values())
+        {
+            result.add(merge(group, null));
+        }
+        return result;
+    }
+
+    /**
+     * Merge several task trees into a new tree on the common {@link ForkJoinPool}. The inputs are split in halves
+     * until there are no more than the threshold left, which are merged with {@link #merge(List)}. The partial
+     * results are then combined pairwise, as a balanced tree. The input tasks are left untouched, and each input is
+     * only read by one thread.
+     *
+     * @param inputs    The root tasks of each tree
+     * @param threshold The largest number of inputs merged sequentially
+     * @return The root tasks of the merged tree
+     */
+    public static List<TaskInfo> mergeParallel(final List<List<TaskInfo>> inputs, final int threshold)
+    {
+        if (threshold < 1)
+        {
+            throw new IllegalArgumentException("threshold cannot be less than 1");
+        }
+        return ForkJoinPool.commonPool().invoke(new MergeTask(inputs, 0, inputs.size(), threshold));
+    }
+
+    private static final class MergeTask extends RecursiveTask<List<TaskInfo>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final List<List<TaskInfo>> inputs;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        private MergeTask(final List<List<TaskInfo>> inputs, final int from, final int to, final int threshold)
+        {
+            this.inputs = inputs;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected List<TaskInfo> compute()
+        {
+            if (to - from <= threshold)
+            {
+                return merge(inputs.subList(from, to));
+            }
+
+            final int mid = (from + to) >>> 1;
+            final MergeTask left = new MergeTask(inputs, from, mid, threshold);
+            left.fork();
+            final List<TaskInfo> right = new MergeTask(inputs, mid, to, threshold).compute();
+
+            // Both halves are new trees, so they can be combined in place
+            return mergeInto(left.join(), right);
+        }
+    }
+
+    private static MutableTaskInfo merge(final List<TaskInfo> group, final MutableTaskInfo parent)
+    {
+        final MutableTaskInfo merged = emptyCopy(group, parent);
+        final List<TaskInfo> children = new ArrayList<>();
+        for (TaskInfo task : group)
+        {
+            merged.mergeFrom(task);
+            if (task instanceof MutableTaskInfo mutableTaskInfo)
+            {
+                children.addAll(mutableTaskInfo.children());
+            }
+            else
+            {
+                children.addAll(task.getSubtasks());
+            }
+        }
+
+        for (List<TaskInfo> childGroup : groupByName(children).values())
+        {
+            merge(childGroup, merged);
+        }
+        return merged;
+    }
+
+    /**
+     * Choose the kind of the merged task from the whole group, so the result does not depend on the order of the
+     * inputs. Histograms and snapshots cannot be turned back into samples, so a group with any of them is merged into
+     * a histogram with the coarsest precision in the group. Otherwise spilled samples take precedence, so the merged
+     * samples are not limited by the heap, then reservoirs, so the merged samples stay bounded.
+     */
+    private static MutableTaskInfo emptyCopy(final List<TaskInfo> group, final MutableTaskInfo parent)
+    {
+        double relativeError = 0;
+        HistogramTaskInfo coarsest = null;
+        boolean allWindowed = true;
+        SpillTaskInfo spill = null;
+        ReservoirTaskInfo reservoir = null;
+        for (TaskInfo task : group)
+        {
+            allWindowed &= task instanceof WindowedTaskInfo;
+            if (task instanceof TaskSnapshot snapshot)
+            {
+                relativeError = Math.max(relativeError, snapshot.getHistogram().getRelativeError());
+            }
+            else if (task instanceof HistogramTaskInfo histogram)
+            {
+                if (histogram.getHistogram().getRelativeError() > relativeError)
+                {
+                    relativeError = histogram.getHistogram().getRelativeError();
+                    coarsest = histogram;
+                }
+            }
+            else if (task instanceof SpillTaskInfo spillTaskInfo && spill == null)
+            {
+                spill = spillTaskInfo;
+            }
+            else if (task instanceof ReservoirTaskInfo reservoirTaskInfo && reservoir == null)
+            {
+                reservoir = reservoirTaskInfo;
+            }
+            else if (task instanceof MutableTaskInfo mutableTaskInfo && mutableTaskInfo.hasReleasedSamples())
+            {
+                relativeError = Math.max(relativeError, MutableTaskInfo.SNAPSHOT_RELATIVE_ERROR);
+            }
+        }
+
+        final String name = group.get(0).getName();
+        if (relativeError > 0)
+        {
+            // Windows can only be kept if every input has one
+            return allWindowed ? coarsest.emptyCopy(parent) : new HistogramTaskInfo(name, parent, relativeError);
+        }
+        if (spill != null)
+        {
+            return spill.emptyCopy(parent);
+        }
+        if (reservoir != null)
+        {
+            return reservoir.emptyCopy(parent);
+        }
+        return ((MutableTaskInfo) group.get(0)).emptyCopy(parent);
+    }
+
+    private static Map<String, List<TaskInfo>> groupByName(final List<TaskInfo> tasks)
+    {
+        final Map<String, List<TaskInfo>> groups = new LinkedHashMap<>();
+        for (TaskInfo task : tasks)
+        {
+            groups.computeIfAbsent(task.getName(), name -> new ArrayList<>(1)).add(task);
+        }
+        return groups;
+    }
+
+    /**
+     * Merge the source tasks into the target tasks, in place. Tasks that only exist in the source are moved to the
+     * result, so the source should not be used afterwards. Snapshots cannot be modified, and tasks of different kinds
+     * cannot be merged into each other, so in those cases the tasks are merged into a new tree instead.
+     *
+     * @param target The root tasks to merge into
+     * @param source The root tasks to merge
+     * @return The root tasks of the merged tree
+     */
+    public static List<TaskInfo> mergeInto(final List<TaskInfo> target, final List<TaskInfo> source)
+    {
+        final Set<Class<?>> kinds = new HashSet<>();
+        collectKinds(target, kinds);
+        collectKinds(source, kinds);
+        if (kinds.size() > 1 || kinds.contains(TaskSnapshot.class))
+        {
+            // Only tasks of the same kind can be merged into each other in place
+            return merge(List.of(target, source));
+        }
+
+        final List<TaskInfo> result = new ArrayList<>(target);
+        final Map<String, MutableTaskInfo> byName = new LinkedHashMap<>();
+        for (TaskInfo task : target)
+        {
+            byName.putIfAbsent(task.getName(), (MutableTaskInfo) task);
+        }
+
+        for (TaskInfo task : source)
+        {
+            final MutableTaskInfo existing = byName.get(task.getName());
+            if (existing != null)
+            {
+                existing.merge((MutableTaskInfo) task);
+            }
+            else
+            {
+                result.add(task);
+                byName.put(task.getName(), (MutableTaskInfo) task);
+            }
+        }
+        return result;
+    }
+
+    private static void collectKinds(final List<TaskInfo> tasks, final Set<Class<?>> kinds)
+    {
+        for (TaskInfo task : tasks)
+        {
+            // Samples released to a histogram can no longer be merged in place, just like snapshots
+            final boolean released = task instanceof MutableTaskInfo mutableTaskInfo && mutableTaskInfo.hasReleasedSamples();
+            kinds.add(released ? TaskSnapshot.class : task.getClass());
+            collectKinds(task.getSubtasks(), kinds);
+        }
+    }
+}
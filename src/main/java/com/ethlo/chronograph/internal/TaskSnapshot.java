@@ -0,0 +1,214 @@
+package com.ethlo.chronograph.internal;
+
+/*-
+ * #%L
+ * stopwatch
+ * %%
+ * Copyright (C) 2019 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.ethlo.chronograph.ChronographData;
+import com.ethlo.chronograph.TaskInfo;
+import com.ethlo.chronograph.internal.util.LogLinearHistogram;
+import com.ethlo.chronograph.statistics.PerformanceStatistics;
+
+/**
+ * An immutable copy of a task and its subtasks, taken at a point in time.
+ * <p>
+ * The samples of every task are summarized in a {@link LogLinearHistogram}, so taking a snapshot costs a copy of the
+ * histogram buckets rather than of the raw samples. Snapshots can be passed to other threads, and merged with
+ * {@link ChronographData#merge(String, ChronographData)} into a fresh tree without touching the tasks they were
+ * taken from.
+ * </p>
+ */
+public final class TaskSnapshot implements TaskInfo
+{
+    private final String name;
+    private final TaskInfo parent;
+    private final int depth;
+    private final long invocations;
+    private final long timeNanos;
+    private final long instrumentationOverheadNanos;
+    private final LogLinearHistogram histogram;
+    private final PerformanceStatistics statistics;
+    private final List<TaskInfo> subtasks;
+
+    private TaskSnapshot(final TaskInfo source, final TaskSnapshot parent)
+    {
+        this.name = source.getName();
+        this.parent = parent;
+        this.depth = parent != null ? parent.depth + 1 : 0;
+        this.invocations = source.getInvocations();
+        this.timeNanos = source.getTime().toNanos();
+        this.instrumentationOverheadNanos = source.getInstrumentationOverhead().toNanos();
+        this.histogram = histogramOf(source);
+        this.statistics = new PerformanceStatistics(histogram, invocations, timeNanos);
+
+        final List<TaskInfo> children = source.getSubtasks();
+        final List<TaskInfo> snapshots = new ArrayList<>(children.size());
+        for (TaskInfo child : children)
+        {
+            snapshots.add(new TaskSnapshot(child, this));
+        }
+        this.subtasks = Collections.unmodifiableList(snapshots);
+    }
+
+    private TaskSnapshot(final String name, final TaskInfo parent, final long duration)
+    {
+        this.name = name;
+        this.parent = parent;
+        this.depth = parent != null ? parent.getDepth() + 1 : 0;
+        this.invocations = 1;
+        this.timeNanos = duration;
+        this.instrumentationOverheadNanos = 0;
+        this.histogram = new LogLinearHistogram(MutableTaskInfo.SNAPSHOT_RELATIVE_ERROR);
+        this.histogram.record(duration);
+        this.statistics = new PerformanceStatistics(histogram, invocations, timeNanos);
+        this.subtasks = List.of();
+    }
+
+    /**
+     * Take a snapshot of a task and all its subtasks. The snapshot has no parent, so it is the root of its own tree.
+     *
+     * @param task The task to take a snapshot of
+     * @return The snapshot
+     */
+    public static TaskSnapshot of(final TaskInfo task)
+    {
+        return new TaskSnapshot(task, null);
+    }
+
+    /**
+     * Create a task with a single measurement, that refers to the parent without being one of its subtasks. Used
+     * for derived rows in reports, like unaccounted time, without modifying the reported tree.
+     *
+     * @param name     The name of the task
+     * @param parent   The parent task, or null
+     * @param duration The duration in nanoseconds
+     * @return The task
+     */
+    public static TaskSnapshot detached(final String name, final TaskInfo parent, final long duration)
+    {
+        return new TaskSnapshot(name, parent, duration);
+    }
+
+    private static LogLinearHistogram histogramOf(final TaskInfo task)
+    {
+        if (task instanceof TaskSnapshot snapshot)
+        {
+            // Immutable, so it can be shared
+            return snapshot.histogram;
+        }
+        if (task instanceof MutableTaskInfo mutableTaskInfo)
+        {
+            return mutableTaskInfo.snapshotHistogram();
+        }
+        throw new IllegalArgumentException("Cannot take a snapshot of task " + task.getName() + " of type " + task.getClass().getName());
+    }
+
+    /**
+     * Get the histogram summarizing the samples of this task. It must not be modified.
+     *
+     * @return the histogram
+     */
+    public LogLinearHistogram getHistogram()
+    {
+        return histogram;
+    }
+
+    @Override
+    public String getName()
+    {
+        return name;
+    }
+
+    @Override
+    public Duration getTime()
+    {
+        return Duration.ofNanos(timeNanos);
+    }
+
+    @Override
+    public long getInvocations()
+    {
+        return invocations;
+    }
+
+    @Override
+    public long getSampleSize()
+    {
+        return histogram.size();
+    }
+
+    @Override
+    public PerformanceStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    @Override
+    public Duration getSelfTime()
+    {
+        return getTime().minus(getSubtasksTime());
+    }
+
+    @Override
+    public Duration getSubtasksTime()
+    {
+        long nanos = 0;
+        for (TaskInfo child : subtasks)
+        {
+            nanos += child.getTime().toNanos();
+        }
+        return Duration.ofNanos(nanos);
+    }
+
+    @Override
+    public Duration getInstrumentationOverhead()
+    {
+        return Duration.ofNanos(instrumentationOverheadNanos);
+    }
+
+    @Override
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    @Override
+    public List<TaskInfo> getSubtasks()
+    {
+        return subtasks;
+    }
+
+    @Override
+    public TaskInfo getParent()
+    {
+        return parent;
+    }
+
+    @Override
+    public String toString()
+    {
+        return TaskSnapshot.class.getSimpleName() + "[name='" + name + "']";
+    }
+}
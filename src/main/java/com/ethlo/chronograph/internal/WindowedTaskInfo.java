@@ -0,0 +1,121 @@
+package com.ethlo.chronograph.internal;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.time.Duration;
+
+import com.ethlo.chronograph.TaskInfo;
+import com.ethlo.chronograph.internal.util.LogLinearHistogram;
+import com.ethlo.chronograph.internal.util.SlidingWindowHistogram;
+import com.ethlo.chronograph.statistics.PerformanceStatistics;
+
+/**
+ * Task info that keeps its samples in a {@link SlidingWindowHistogram} as well as in a histogram of all samples, so
+ * the statistics of a recent window can be queried with {@link #getStatistics(Duration)}.
+ */
+public class WindowedTaskInfo extends HistogramTaskInfo
+{
+    public static final double DEFAULT_RELATIVE_ERROR = 0.01;
+
+    private final SlidingWindowHistogram window;
+
+    public WindowedTaskInfo(final String name, final MutableTaskInfo parent, final double relativeError, final Duration slot, final int slots)
+    {
+        this(name, parent, new LogLinearHistogram(relativeError), new SlidingWindowHistogram(relativeError, slot, slots));
+    }
+
+    public WindowedTaskInfo(final String name, final MutableTaskInfo parent, final LogLinearHistogram histogram, final SlidingWindowHistogram window)
+    {
+        super(name, parent, histogram);
+        this.window = window;
+    }
+
+    /**
+     * Create a tree of tasks with the statistics of a window, which ends now, from a tree of windowed tasks
+     *
+     * @param task   The task to start from
+     * @param window The length of the window
+     * @return A new task, with subtasks
+     * @throws UnsupportedOperationException if any of the tasks does not keep windowed statistics
+     */
+    public static MutableTaskInfo windowOf(final TaskInfo task, final Duration window)
+    {
+        return windowOf(task, window, System.nanoTime(), null);
+    }
+
+    private static MutableTaskInfo windowOf(final TaskInfo task, final Duration window, final long now, final MutableTaskInfo parent)
+    {
+        if (!(task instanceof WindowedTaskInfo windowed))
+        {
+            throw new UnsupportedOperationException("Task " + task.getName() + " does not keep windowed statistics");
+        }
+
+        final MutableTaskInfo result = new HistogramTaskInfo(task.getName(), parent, windowed.window.getWindow(window, now));
+        for (TaskInfo child : task.getSubtasks())
+        {
+            windowOf(child, window, now, result);
+        }
+        return result;
+    }
+
+    @Override
+    void logElapsedDuration(final long duration, final long timestamp)
+    {
+        super.logElapsedDuration(duration);
+        window.record(duration, timestamp);
+    }
+
+    /**
+     * Record a duration without a stop time, like an added measurement, in the slot of the current time
+     */
+    @Override
+    void logElapsedDuration(final long duration)
+    {
+        logElapsedDuration(duration, System.nanoTime());
+    }
+
+    @Override
+    public PerformanceStatistics getStatistics(final Duration window)
+    {
+        final LogLinearHistogram histogram = this.window.getWindow(window, System.nanoTime());
+        return new PerformanceStatistics(histogram, histogram.size(), histogram.sum());
+    }
+
+    @Override
+    MutableTaskInfo emptyCopy(final MutableTaskInfo parent)
+    {
+        return new WindowedTaskInfo(getName(), parent, new LogLinearHistogram(getHistogram().getRelativeError()), window.emptyCopy());
+    }
+
+    /**
+     * Merge the totals, and the windows if the other task has one. Samples without a time are only added to the totals.
+     */
+    @Override
+    void mergeData(final TaskInfo other)
+    {
+        super.mergeData(other);
+        if (other instanceof WindowedTaskInfo windowed)
+        {
+            window.merge(windowed.window);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.ethlo.chronograph.internal.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayDeque;
+
+/**
+ * Pool of the power-of-two sized blocks used by {@link LongList}, so the memory of discarded lists can be reused.
+ * The pool keeps at most a given number of bytes, and is not thread-safe.
+ */
+public class BlockPool
+{
+    /**
+     * The default maximum number of bytes kept in a pool, 16 MiB
+     */
+    public static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+    private final long maxBytes;
+    private final ArrayDeque<long[]>[] free;
+    private long pooledBytes;
+
+    @SuppressWarnings({"unchecked", "rawtypes"}) // Generic arrays cannot be created directly
+    public BlockPool(final long maxBytes)
+    {
+        this.maxBytes = maxBytes;
+        this.free = new ArrayDeque[Integer.SIZE];
+    }
+
+    /**
+     * Take a block from the pool, or allocate a new one if there is none of the size
+     *
+     * @param size The size of the block, a power of two
+     * @return A block of the given size. The content is undefined.
+     */
+    public long[] take(final int size)
+    {
+        final ArrayDeque<long[]> blocks = free[Integer.numberOfTrailingZeros(size)];
+        final long[] block = blocks != null ? blocks.pollLast() : null;
+        if (block == null)
+        {
+            return new long[size];
+        }
+        pooledBytes -= (long) size * Long.BYTES;
+        return block;
+    }
+
+    /**
+     * Return a block to the pool. The block is dropped if the pool is full.
+     *
+     * @param block The block, with a length that is a power of two
+     */
+    public void give(final long[] block)
+    {
+        final long bytes = (long) block.length * Long.BYTES;
+        if (Integer.bitCount(block.length) != 1 || pooledBytes + bytes > maxBytes)
+        {
+            return;
+        }
+
+        final int sizeClass = Integer.numberOfTrailingZeros(block.length);
+        if (free[sizeClass] == null)
+        {
+            free[sizeClass] = new ArrayDeque<>();
+        }
+        free[sizeClass].addLast(block);
+        pooledBytes += bytes;
+    }
+
+    /**
+     * The number of bytes currently kept in the pool
+     *
+     * @return The number of bytes
+     */
+    public long getPooledBytes()
+    {
+        return pooledBytes;
+    }
+}
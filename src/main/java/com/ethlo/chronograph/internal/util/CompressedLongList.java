@@ -0,0 +1,511 @@
+package com.ethlo.chronograph.internal.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * List of longs compressed in blocks of {@value #BLOCK_SIZE} values, for keeping large sample sets in memory.
+ * <p>
+ * Each block is stored in the smaller of two encodings: the differences between consecutive values as zig-zag
+ * variable length integers, which suits sorted values, or the offsets from the smallest value of the block packed
+ * with the number of bits needed for the largest offset, which suits unsorted values of a similar magnitude. A
+ * duration typically takes 2 to 3 bytes, and a sorted list much less. The most recent values are kept uncompressed
+ * until their block is full. Reading a value decodes its block, so sequential access and bulk copies are fast, while
+ * random access costs up to a block of decoding.
+ */
+public class CompressedLongList implements IndexedCollection<Long>
+{
+    /**
+     * The number of values per compressed block
+     */
+    public static final int BLOCK_SIZE = 128;
+
+    private static final int BLOCK_SHIFT = Integer.numberOfTrailingZeros(BLOCK_SIZE);
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+    private static final int MAX_VARINT_BYTES = 10;
+
+    // Block encodings, stored in the first byte of each block
+    private static final byte DELTA_VARINT = 0;
+    private static final byte PACKED = 1;
+
+    private final List<byte[]> blocks = new ArrayList<>();
+    private final long[] open = new long[BLOCK_SIZE];
+    private int openCount;
+    private long size;
+    private boolean isSorted;
+
+    // The most recently decoded block, for sequential random access. It is replaced rather than decoded into, so
+    // concurrent readers, like a parallel stream, never see a block that is being decoded by another thread
+    private volatile DecodedBlock decoded;
+
+    private record DecodedBlock(int index, long[] values)
+    {
+    }
+
+    @Override
+    public void add(final long value)
+    {
+        open[openCount++] = value;
+        size++;
+        if (openCount == BLOCK_SIZE)
+        {
+            blocks.add(encode(open, BLOCK_SIZE));
+            openCount = 0;
+        }
+        isSorted = false;
+    }
+
+    private static byte[] encode(final long[] values, final int count)
+    {
+        final byte[] deltas = encodeDeltas(values, count);
+        final byte[] packed = encodePacked(values, count);
+        return packed.length < deltas.length ? packed : deltas;
+    }
+
+    private static byte[] encodeDeltas(final long[] values, final int count)
+    {
+        final byte[] buffer = new byte[1 + count * MAX_VARINT_BYTES];
+        buffer[0] = DELTA_VARINT;
+        int position = 1;
+        long previous = 0;
+        for (int i = 0; i < count; i++)
+        {
+            position = writeVarint(buffer, position, zigZag(values[i] - previous));
+            previous = values[i];
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private static byte[] encodePacked(final long[] values, final int count)
+    {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++)
+        {
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+        }
+        final int bits = count == 0 ? 0 : 64 - Long.numberOfLeadingZeros(max - min);
+
+        final byte[] header = new byte[2 + MAX_VARINT_BYTES];
+        header[0] = PACKED;
+        int position = writeVarint(header, 1, zigZag(min));
+        header[position++] = (byte) bits;
+        final byte[] buffer = Arrays.copyOf(header, position + (int) (((long) count * bits + 7) >>> 3));
+
+        long bitPosition = (long) position << 3;
+        for (int i = 0; i < count; i++)
+        {
+            long offset = values[i] - min;
+            int remaining = bits;
+            while (remaining > 0)
+            {
+                final int bitOffset = (int) (bitPosition & 7);
+                final int taken = Math.min(8 - bitOffset, remaining);
+                buffer[(int) (bitPosition >>> 3)] |= (byte) ((offset & ((1 << taken) - 1)) << bitOffset);
+                offset >>>= taken;
+                bitPosition += taken;
+                remaining -= taken;
+            }
+        }
+        return buffer;
+    }
+
+    private static void decode(final byte[] block, final long[] dst, final int count)
+    {
+        if (block[0] == PACKED)
+        {
+            decodePacked(block, dst, count);
+            return;
+        }
+
+        int position = 1;
+        long previous = 0;
+        for (int i = 0; i < count; i++)
+        {
+            long encoded = 0;
+            int shift = 0;
+            byte b;
+            do
+            {
+                b = block[position++];
+                encoded |= (b & 0x7FL) << shift;
+                shift += 7;
+            }
+            while (b < 0);
+            previous += (encoded >>> 1) ^ -(encoded & 1);
+            dst[i] = previous;
+        }
+    }
+
+    private static void decodePacked(final byte[] block, final long[] dst, final int count)
+    {
+        final int[] position = {1};
+        final long encodedMin = readVarint(block, position);
+        final long min = (encodedMin >>> 1) ^ -(encodedMin & 1);
+        final int bits = block[position[0]++];
+
+        long bitPosition = (long) position[0] << 3;
+        for (int i = 0; i < count; i++)
+        {
+            long offset = 0;
+            int read = 0;
+            while (read < bits)
+            {
+                final int bitOffset = (int) (bitPosition & 7);
+                final int taken = Math.min(8 - bitOffset, bits - read);
+                offset |= (long) ((block[(int) (bitPosition >>> 3)] >>> bitOffset) & ((1 << taken) - 1)) << read;
+                bitPosition += taken;
+                read += taken;
+            }
+            dst[i] = min + offset;
+        }
+    }
+
+    private static long zigZag(final long value)
+    {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int writeVarint(final byte[] buffer, int position, long value)
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    private long[] block(final int block)
+    {
+        if (block == blocks.size())
+        {
+            return open;
+        }
+        DecodedBlock cached = decoded;
+        if (cached == null || cached.index() != block)
+        {
+            final long[] values = new long[BLOCK_SIZE];
+            decode(blocks.get(block), values, BLOCK_SIZE);
+            cached = new DecodedBlock(block, values);
+            decoded = cached;
+        }
+        return cached.values();
+    }
+
+    @Override
+    public Long get(final long index)
+    {
+        return getLong(index);
+    }
+
+    @Override
+    public long getLong(final long index)
+    {
+        checkIndex(index);
+        return block((int) (index >>> BLOCK_SHIFT))[(int) (index & BLOCK_MASK)];
+    }
+
+    private void checkIndex(final long index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    @Override
+    public long size()
+    {
+        return size;
+    }
+
+    @Override
+    public void set(final long index, final Long value)
+    {
+        setLong(index, Objects.requireNonNull(value));
+    }
+
+    @Override
+    public void setLong(final long index, final long value)
+    {
+        checkIndex(index);
+        final int blockIndex = (int) (index >>> BLOCK_SHIFT);
+        final long[] values = block(blockIndex);
+        values[(int) (index & BLOCK_MASK)] = value;
+        if (values != open)
+        {
+            blocks.set(blockIndex, encode(values, BLOCK_SIZE));
+        }
+        isSorted = false;
+    }
+
+    @Override
+    public void sort()
+    {
+        if (!isSorted)
+        {
+            if (size > LongList.MAX_ARRAY_LENGTH)
+            {
+                throw new UnsupportedOperationException("Cannot sort more than " + LongList.MAX_ARRAY_LENGTH + " compressed values");
+            }
+
+            final long[] all = new long[(int) size];
+            copyTo(all, 0, all.length);
+            if (all.length >= LongList.PARALLEL_THRESHOLD)
+            {
+                Arrays.parallelSort(all);
+            }
+            else
+            {
+                Arrays.sort(all);
+            }
+
+            // Sorted values compress better, as the differences are small and never negative
+            for (int i = 0; i < blocks.size(); i++)
+            {
+                blocks.set(i, encode(Arrays.copyOfRange(all, i << BLOCK_SHIFT, (i + 1) << BLOCK_SHIFT), BLOCK_SIZE));
+            }
+            System.arraycopy(all, blocks.size() << BLOCK_SHIFT, open, 0, openCount);
+            decoded = null;
+            isSorted = true;
+        }
+    }
+
+    @Override
+    public boolean isSorted()
+    {
+        return isSorted;
+    }
+
+    @Override
+    public Iterator<Long> iterator()
+    {
+        return longIterator();
+    }
+
+    private PrimitiveIterator.OfLong longIterator()
+    {
+        return new PrimitiveIterator.OfLong()
+        {
+            private final long[] values = new long[BLOCK_SIZE];
+            private long idx = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return idx < size;
+            }
+
+            @Override
+            public long nextLong()
+            {
+                if (idx >= size)
+                {
+                    throw new NoSuchElementException();
+                }
+
+                final int offset = (int) (idx & BLOCK_MASK);
+                final int blockIndex = (int) (idx >>> BLOCK_SHIFT);
+                idx++;
+                if (blockIndex == blocks.size())
+                {
+                    return open[offset];
+                }
+                if (offset == 0)
+                {
+                    decode(blocks.get(blockIndex), values, BLOCK_SIZE);
+                }
+                return values[offset];
+            }
+        };
+    }
+
+    @Override
+    public Stream<Long> stream()
+    {
+        return longStream().boxed();
+    }
+
+    @Override
+    public LongStream longStream()
+    {
+        return StreamSupport.longStream(Spliterators.spliterator(longIterator(), size, Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public void forEachLong(final LongConsumer consumer)
+    {
+        final long[] values = new long[BLOCK_SIZE];
+        for (byte[] block : blocks)
+        {
+            decode(block, values, BLOCK_SIZE);
+            for (long value : values)
+            {
+                consumer.accept(value);
+            }
+        }
+        for (int i = 0; i < openCount; i++)
+        {
+            consumer.accept(open[i]);
+        }
+    }
+
+    @Override
+    public void copyTo(final long[] dst, final long from, final int len)
+    {
+        if (from < 0 || len < 0 || from + len > size)
+        {
+            throw new ArrayIndexOutOfBoundsException("Range " + from + " - " + (from + len) + " is outside of 0 - " + size);
+        }
+
+        int copied = 0;
+        while (copied < len)
+        {
+            final long pos = from + copied;
+            final int offset = (int) (pos & BLOCK_MASK);
+            final int count = Math.min(BLOCK_SIZE - offset, len - copied);
+            System.arraycopy(block((int) (pos >>> BLOCK_SHIFT)), offset, dst, copied, count);
+            copied += count;
+        }
+    }
+
+    @Override
+    public CompressedLongList addAll(final Iterable<Long> values)
+    {
+        if (values instanceof IndexedCollection<Long> other)
+        {
+            other.forEachLong(this::add);
+        }
+        else
+        {
+            values.forEach(this::add);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    @Override
+    public void release()
+    {
+        blocks.clear();
+        openCount = 0;
+        size = 0;
+        decoded = null;
+        isSorted = false;
+    }
+
+    /**
+     * The approximate number of bytes used by the values
+     *
+     * @return The number of bytes
+     */
+    public long getCompressedBytes()
+    {
+        long bytes = (long) openCount * Long.BYTES;
+        for (byte[] block : blocks)
+        {
+            bytes += block.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Serialize the values. The compressed blocks are written as they are, so this is mostly a copy.
+     *
+     * @return The serialized values
+     * @see #fromByteArray(byte[])
+     */
+    public byte[] toByteArray()
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(LongList.MAX_ARRAY_LENGTH, getCompressedBytes() + blocks.size() * 2L + 16));
+        final byte[] varint = new byte[MAX_VARINT_BYTES];
+        out.write(varint, 0, writeVarint(varint, 0, size));
+        for (byte[] block : blocks)
+        {
+            out.write(varint, 0, writeVarint(varint, 0, block.length));
+            out.write(block, 0, block.length);
+        }
+        final byte[] tail = encode(open, openCount);
+        out.write(tail, 0, tail.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * Create a list from values serialized with {@link #toByteArray()}
+     *
+     * @param data The serialized values
+     * @return A list of the values
+     */
+    public static CompressedLongList fromByteArray(final byte[] data)
+    {
+        final CompressedLongList list = new CompressedLongList();
+        final int[] position = new int[1];
+        final long size = readVarint(data, position);
+        final long blockCount = size >>> BLOCK_SHIFT;
+        for (long i = 0; i < blockCount; i++)
+        {
+            final int length = (int) readVarint(data, position);
+            list.blocks.add(Arrays.copyOfRange(data, position[0], position[0] + length));
+            position[0] += length;
+        }
+        list.openCount = (int) (size & BLOCK_MASK);
+        decode(Arrays.copyOfRange(data, position[0], data.length), list.open, list.openCount);
+        list.size = size;
+        return list;
+    }
+
+    private static long readVarint(final byte[] data, final int[] position)
+    {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do
+        {
+            b = data[position[0]++];
+            value |= (b & 0x7FL) << shift;
+            shift += 7;
+        }
+        while (b < 0);
+        return value;
+    }
+}
@@ -20,23 +20,56 @@ package com.ethlo.chronograph.internal.util;
  * #L%
  */
 
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
+/**
+ * A list of long values addressed by a long index, so it can hold more values than fit in a single array
+ *
+ * @param <T> The boxed element type
+ */
 public interface IndexedCollection<T> extends Iterable<T>
 {
     void add(long T);
 
-    T get(int index);
+    T get(long index);
+
+    long getLong(long index);
 
-    int size();
+    long size();
 
-    void set(int index, T value);
+    void set(long index, T value);
+
+    void setLong(long index, long value);
 
     void sort();
 
+    boolean isSorted();
+
     Stream<T> stream();
 
+    LongStream longStream();
+
+    void forEachLong(LongConsumer consumer);
+
+    /**
+     * Copy a range of values into the start of the destination array
+     *
+     * @param dst  The array to copy into
+     * @param from The index of the first value to copy
+     * @param len  The number of values to copy
+     */
+    void copyTo(long[] dst, long from, int len);
+
     IndexedCollection<Long> addAll(Iterable<T> values);
 
     boolean isEmpty();
+
+    /**
+     * Remove all values and free any memory held outside the heap
+     */
+    default void release()
+    {
+    }
 }
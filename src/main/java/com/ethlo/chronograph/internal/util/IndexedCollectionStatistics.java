@@ -20,38 +20,189 @@ package com.ethlo.chronograph.internal.util;
  * #L%
  */
 
-import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.LongStream;
 
-public class IndexedCollectionStatistics
+/**
+ * Statistics of a collection of samples. Percentiles and the median are found by selection on a temporary copy of
+ * the samples, so the collection itself is left untouched and is only sorted when {@link #getList()} is called.
+ * Collections too large to copy into an array are searched with a radix select over the samples instead.
+ */
+public class IndexedCollectionStatistics implements SampleStatistics
 {
     private final IndexedCollection<Long> list;
+    private final RunningStatistics running;
     private final long sum;
+    private final Map<Long, Long> valuesByRank = new HashMap<>();
 
     public IndexedCollectionStatistics(IndexedCollection<Long> list)
+    {
+        this(list, null);
+    }
+
+    /**
+     * Create statistics where the order-independent values are taken from running statistics of the same samples,
+     * so the samples are only traversed if a percentile or the median is requested.
+     *
+     * @param list    The samples
+     * @param running Running statistics of the same samples, or null to calculate everything from the samples
+     */
+    public IndexedCollectionStatistics(IndexedCollection<Long> list, RunningStatistics running)
     {
         this.list = list;
+        this.running = running;
+        this.sum = running != null ? running.getSum() : calculateSum();
+    }
+
+    private IndexedCollection<Long> sorted()
+    {
         list.sort();
-        this.sum = calculateSum();
+        return list;
+    }
+
+    /**
+     * Get the values at the given zero-based ranks in sorted order, in a single selection pass for all ranks not
+     * already known
+     */
+    private long[] valuesAt(final long... ranks)
+    {
+        final long[] result = new long[ranks.length];
+        if (list.isSorted())
+        {
+            for (int i = 0; i < ranks.length; i++)
+            {
+                result[i] = list.getLong(ranks[i]);
+            }
+            return result;
+        }
+
+        final long[] missing = new long[ranks.length];
+        int missingCount = 0;
+        for (long rank : ranks)
+        {
+            if (!valuesByRank.containsKey(rank))
+            {
+                missing[missingCount++] = rank;
+            }
+        }
+
+        if (missingCount > 0)
+        {
+            final long[] toSelect = Arrays.copyOf(missing, missingCount);
+            final long[] selected = select(toSelect);
+            for (int i = 0; i < missingCount; i++)
+            {
+                valuesByRank.put(toSelect[i], selected[i]);
+            }
+        }
+
+        for (int i = 0; i < ranks.length; i++)
+        {
+            result[i] = valuesByRank.get(ranks[i]);
+        }
+        return result;
+    }
+
+    private long[] select(final long[] ranks)
+    {
+        if (list.size() > LongList.MAX_ARRAY_LENGTH)
+        {
+            return Selection.select(list, ranks);
+        }
+
+        final long[] values = new long[(int) list.size()];
+        list.copyTo(values, 0, values.length);
+        final int[] intRanks = new int[ranks.length];
+        for (int i = 0; i < ranks.length; i++)
+        {
+            intRanks[i] = (int) ranks[i];
+        }
+        return Selection.select(values, intRanks);
+    }
+
+    private long rank(final double percentile)
+    {
+        final long index = (long) Math.ceil((percentile / 100) * list.size());
+        return Math.max(0, Math.min(list.size() - 1, index - 1));
+    }
+
+    private long[] medianRanks()
+    {
+        final long pivot = list.size() / 2;
+        return pivot * 2 == list.size() ? new long[]{pivot - 1, pivot} : new long[]{pivot};
+    }
+
+    private static long median(final long[] middle)
+    {
+        // Average of two middle elements for an even number of samples
+        return middle.length == 2 ? (middle[0] + middle[1]) / 2 : middle[0];
     }
 
     private long calculateSum()
     {
-        long sum = 0;
-        for (long l : list)
+        return stream(list).sum();
+    }
+
+    /**
+     * Stream the samples, in parallel for large collections
+     */
+    private static LongStream stream(final IndexedCollection<Long> list)
+    {
+        final LongStream stream = list.longStream();
+        return list.size() >= LongList.PARALLEL_THRESHOLD ? stream.parallel() : stream;
+    }
+
+    /**
+     * The floored mean, accumulated as quotients and remainders of the division by the count so no intermediate
+     * value can overflow. The sum of the remainders is carried into the quotients, so it stays below the count.
+     */
+    private static long average(final IndexedCollection<Long> list)
+    {
+        final long count = list.size();
+        final long[] result = stream(list).collect(() -> new long[2], (acc, value) ->
+        {
+            acc[0] += Math.floorDiv(value, count);
+            addRemainder(acc, Math.floorMod(value, count), count);
+        }, (a, b) ->
         {
-            sum += l;
+            a[0] += b[0];
+            addRemainder(a, b[1], count);
+        });
+        return result[0];
+    }
+
+    private static void addRemainder(final long[] acc, final long remainder, final long count)
+    {
+        // Compared with the room left below the count, as the sum itself could overflow for very large counts
+        if (acc[1] >= count - remainder)
+        {
+            acc[0]++;
+            acc[1] -= count - remainder;
+        }
+        else
+        {
+            acc[1] += remainder;
         }
-        return sum;
     }
 
     public Long getMin()
     {
-        return isEmpty() ? null : list.get(0);
+        if (isEmpty())
+        {
+            return null;
+        }
+        return running != null ? running.getMin() : stream(list).min().orElseThrow();
     }
 
     public Long getMax()
     {
-        return isEmpty() ? null : list.get(list.size() - 1);
+        if (isEmpty())
+        {
+            return null;
+        }
+        return running != null ? running.getMax() : stream(list).max().orElseThrow();
     }
 
     public Long getAverage()
@@ -61,13 +212,12 @@ public class IndexedCollectionStatistics
             return null;
         }
 
-        BigInteger sum = BigInteger.ZERO;
-        for (final Long l : list)
+        if (running != null)
         {
-            final BigInteger bi = BigInteger.valueOf(l);
-            sum = sum.add(bi);
+            return running.getSum() / running.getCount();
         }
-        return sum.divide(BigInteger.valueOf(list.size())).longValue();
+
+        return average(list);
     }
 
     public Long getPercentile(double percentile)
@@ -77,24 +227,41 @@ public class IndexedCollectionStatistics
             return null;
         }
 
-        final int index = (int) Math.ceil((percentile / 100) * list.size());
-        return list.get(index - 1);
+        return valuesAt(rank(percentile))[0];
     }
 
-    public Long getMedian()
+    /**
+     * Get several percentiles in a single selection pass. The median is found in the same pass.
+     *
+     * @param percentiles The percentiles to get
+     * @return The value of each percentile, in the same order, or null if there are no samples
+     */
+    @Override
+    public long[] getPercentiles(double... percentiles)
     {
-        if (list.isEmpty())
+        if (isEmpty())
         {
             return null;
         }
 
-        final int pivot = list.size() / 2;
-        if (pivot * 2 == list.size())
+        final long[] medianRanks = medianRanks();
+        final long[] ranks = new long[percentiles.length + medianRanks.length];
+        for (int i = 0; i < percentiles.length; i++)
         {
-            // Average of two middle elements
-            return (list.get(pivot - 1) + list.get(pivot)) / 2;
+            ranks[i] = rank(percentiles[i]);
         }
-        return list.get(pivot);
+        System.arraycopy(medianRanks, 0, ranks, percentiles.length, medianRanks.length);
+        return Arrays.copyOf(valuesAt(ranks), percentiles.length);
+    }
+
+    public Long getMedian()
+    {
+        if (list.isEmpty())
+        {
+            return null;
+        }
+
+        return median(valuesAt(medianRanks()));
     }
 
     public long sum()
@@ -107,16 +274,21 @@ public class IndexedCollectionStatistics
         return list.size();
     }
 
+    /**
+     * Get the samples, sorted in place
+     *
+     * @return The sorted samples
+     */
     public IndexedCollection<Long> getList()
     {
-        return list;
+        return sorted();
     }
 
     public IndexedCollectionStatistics merge(IndexedCollectionStatistics other)
     {
-        final LongList list = new LongList((Math.max(10, this.list.size() + other.list.size()) / 10));
-        this.list.forEach(list::add);
-        other.list.forEach(list::add);
+        final LongList list = new LongList((int) Math.min(LongList.MAX_ARRAY_LENGTH, Math.max(10, this.list.size() + other.list.size()) / 10));
+        this.list.forEachLong(list::add);
+        other.list.forEachLong(list::add);
         return new IndexedCollectionStatistics(list);
     }
 
@@ -132,14 +304,18 @@ public class IndexedCollectionStatistics
             return null;
         }
 
-        final int count = list.size();
-        final Long mean = getAverage();
-        double standardDeviation = 0D;
-        for (long num : list)
+        if (running != null)
         {
-            standardDeviation += Math.pow(num - mean, 2);
+            return (long) running.getStandardDeviation();
         }
-        return (long) Math.sqrt(standardDeviation / count);
+
+        final long mean = getAverage();
+        final double squares = stream(list).mapToDouble(value ->
+        {
+            final double diff = value - mean;
+            return diff * diff;
+        }).sum();
+        return (long) Math.sqrt(squares / list.size());
     }
 
     public long getSum()
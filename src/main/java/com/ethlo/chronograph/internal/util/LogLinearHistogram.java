@@ -0,0 +1,315 @@
+package com.ethlo.chronograph.internal.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+
+/**
+ * Fixed-memory histogram with log-linear bucketing, in the style of HdrHistogram.
+ * <p>
+ * Values below <code>2^k</code> are counted exactly. Above that, every power-of-two range is split into
+ * <code>2^(k-1)</code> linear sub-buckets, so the width of a bucket is never more than the configured relative
+ * error of the values it holds. The bucket array only grows to the highest bucket in use, and is bounded by the
+ * number of buckets needed to cover all positive long values.
+ * <p>
+ * Count, sum, min and max are tracked exactly. Percentiles and standard deviation are derived from the buckets.
+ */
+public class LogLinearHistogram implements SampleStatistics
+{
+    private static final int MAX_SUB_BUCKET_BITS = 24;
+
+    private final double relativeError;
+    private final int subBucketBits;
+    private final int subBucketCount;
+    private final int subBucketHalfCount;
+    private final int maxBuckets;
+
+    private long[] counts = new long[0];
+    private long totalCount;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * Create a histogram
+     *
+     * @param relativeError The maximum relative error of the reported values, for example 0.01 for 1%
+     */
+    public LogLinearHistogram(final double relativeError)
+    {
+        this.relativeError = relativeError;
+        this.subBucketBits = subBucketBits(relativeError);
+        this.subBucketCount = 1 << subBucketBits;
+        this.subBucketHalfCount = subBucketCount >> 1;
+        this.maxBuckets = subBucketCount + (63 - subBucketBits) * subBucketHalfCount;
+    }
+
+    private LogLinearHistogram(final LogLinearHistogram source)
+    {
+        this(source.relativeError);
+        this.counts = source.counts.clone();
+        this.totalCount = source.totalCount;
+        this.sum = source.sum;
+        this.min = source.min;
+        this.max = source.max;
+    }
+
+    static int subBucketBits(final double relativeError)
+    {
+        if (!(relativeError > 0 && relativeError <= 0.5))
+        {
+            throw new IllegalArgumentException("relativeError must be larger than 0 and no more than 0.5: " + relativeError);
+        }
+
+        // Sub-buckets per half must be at least 1 / relativeError
+        final long required = (long) Math.ceil(1 / relativeError);
+        final int halfBits = required <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(required - 1);
+        if (halfBits + 1 > MAX_SUB_BUCKET_BITS)
+        {
+            throw new IllegalArgumentException("relativeError is too small: " + relativeError);
+        }
+        return halfBits + 1;
+    }
+
+    /**
+     * Record a value. Negative values, like durations reduced below zero by overhead compensation, are recorded as 0.
+     *
+     * @param value The value
+     */
+    public void record(final long value)
+    {
+        // Clamped before any state is updated, so the buckets, sum, min and max all agree
+        final long clamped = Math.max(0, value);
+        final int index = bucketIndex(clamped);
+        if (index >= counts.length)
+        {
+            counts = Arrays.copyOf(counts, Math.min(maxBuckets, Math.max(index + 1, counts.length * 2)));
+        }
+        counts[index]++;
+        totalCount++;
+        sum += clamped;
+        if (clamped < min)
+        {
+            min = clamped;
+        }
+        if (clamped > max)
+        {
+            max = clamped;
+        }
+    }
+
+    public void merge(final LogLinearHistogram other)
+    {
+        if (other.subBucketBits != subBucketBits)
+        {
+            throw new IllegalArgumentException("Cannot merge histograms with different precision");
+        }
+
+        if (other.counts.length > counts.length)
+        {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++)
+        {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public LogLinearHistogram copy()
+    {
+        return new LogLinearHistogram(this);
+    }
+
+    /**
+     * Create a copy of this histogram with a different precision, so it can be merged with histograms of that
+     * precision. The count of every bucket is moved to the bucket of its representative value, while count, sum, min
+     * and max stay exact. Changing to a finer precision does not make the existing values more precise.
+     *
+     * @param relativeError The maximum relative error of the copy
+     * @return The copy
+     */
+    public LogLinearHistogram withRelativeError(final double relativeError)
+    {
+        final LogLinearHistogram result = new LogLinearHistogram(relativeError);
+        if (result.subBucketBits == subBucketBits)
+        {
+            return copy();
+        }
+
+        for (int i = 0; i < counts.length; i++)
+        {
+            if (counts[i] > 0)
+            {
+                final int index = result.bucketIndex(Math.max(0, representativeValue(i)));
+                if (index >= result.counts.length)
+                {
+                    result.counts = Arrays.copyOf(result.counts, Math.min(result.maxBuckets, Math.max(index + 1, result.counts.length * 2)));
+                }
+                result.counts[index] += counts[i];
+            }
+        }
+        result.totalCount = totalCount;
+        result.sum = sum;
+        result.min = min;
+        result.max = max;
+        return result;
+    }
+
+    public void reset()
+    {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+    }
+
+    public double getRelativeError()
+    {
+        return relativeError;
+    }
+
+    int bucketIndex(final long value)
+    {
+        if (value < subBucketCount)
+        {
+            return (int) value;
+        }
+        final int shift = 64 - Long.numberOfLeadingZeros(value) - subBucketBits;
+        final int mantissa = (int) (value >>> shift);
+        return subBucketCount + (shift - 1) * subBucketHalfCount + (mantissa - subBucketHalfCount);
+    }
+
+    long lowestValue(final int index)
+    {
+        if (index < subBucketCount)
+        {
+            return index;
+        }
+        final int relative = index - subBucketCount;
+        final int shift = relative / subBucketHalfCount + 1;
+        final long mantissa = relative % subBucketHalfCount + subBucketHalfCount;
+        return mantissa << shift;
+    }
+
+    long width(final int index)
+    {
+        if (index < subBucketCount)
+        {
+            return 1;
+        }
+        return 1L << ((index - subBucketCount) / subBucketHalfCount + 1);
+    }
+
+    private long representativeValue(final int index)
+    {
+        final long value = lowestValue(index) + (width(index) >>> 1);
+        return Math.max(min, Math.min(max, value));
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return totalCount == 0;
+    }
+
+    @Override
+    public long size()
+    {
+        return totalCount;
+    }
+
+    @Override
+    public long sum()
+    {
+        return sum;
+    }
+
+    @Override
+    public Long getMin()
+    {
+        return isEmpty() ? null : min;
+    }
+
+    @Override
+    public Long getMax()
+    {
+        return isEmpty() ? null : max;
+    }
+
+    @Override
+    public Long getAverage()
+    {
+        return isEmpty() ? null : sum / totalCount;
+    }
+
+    @Override
+    public Long getMedian()
+    {
+        return getPercentile(50);
+    }
+
+    @Override
+    public Long getPercentile(final double percentile)
+    {
+        if (isEmpty())
+        {
+            return null;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil((percentile / 100) * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++)
+        {
+            seen += counts[i];
+            if (seen >= rank)
+            {
+                return representativeValue(i);
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public Long getStandardDeviation()
+    {
+        if (isEmpty())
+        {
+            return null;
+        }
+
+        final double mean = sum / (double) totalCount;
+        double squares = 0D;
+        for (int i = 0; i < counts.length; i++)
+        {
+            if (counts[i] > 0)
+            {
+                final double diff = representativeValue(i) - mean;
+                squares += diff * diff * counts[i];
+            }
+        }
+        return (long) Math.sqrt(squares / totalCount);
+    }
+}
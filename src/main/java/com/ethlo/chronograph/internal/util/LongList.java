@@ -24,17 +24,52 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+/**
+ * List of longs stored in blocks that grow geometrically, from {@value #FIRST_BLOCK_SIZE} elements up to a maximum
+ * block size, so a list with a handful of values stays small while large lists are addressed with shifts. Blocks can
+ * be taken from, and returned to, a {@link BlockPool} that is shared by several lists.
+ */
 public class LongList implements IndexedCollection<Long>
 {
-    private static final int DEFAULT_BLOCK_SIZE = 1_000;
+    /**
+     * The number of elements in the first block
+     */
+    public static final int FIRST_BLOCK_SIZE = 8;
+
+    private static final int DEFAULT_BLOCK_SIZE = 1_024;
+
+    /**
+     * The number of elements from which sorting is done in parallel
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
 
-    private final int blockSize;
-    private final List<long[]> blocks = new ArrayList<>(16);
-    private int index = 0;
+    /**
+     * The largest number of elements that can be copied into a single array
+     */
+    public static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final BlockPool pool;
+    private final int firstShift;
+    private final int maxShift;
+    private final int maxBlockSize;
+
+    // The index of the first block of the maximum size
+    private final int fullBlockIndex;
+    private final int sortRunLength;
+    private final long capacity; // The number of elements in the largest number of blocks a list can hold
+    private List<long[]> blocks = new ArrayList<>(4);
+    private long[] current;
+    private int currentOffset;
+    private long index = 0;
     private boolean isSorted = false;
 
     public LongList()
@@ -42,64 +77,157 @@ public class LongList implements IndexedCollection<Long>
         this(DEFAULT_BLOCK_SIZE);
     }
 
+    /**
+     * Create a list that takes its blocks from the given pool
+     *
+     * @param pool The pool to take blocks from, and return them to on {@link #release()}
+     */
+    public LongList(BlockPool pool)
+    {
+        this(DEFAULT_BLOCK_SIZE, MAX_ARRAY_LENGTH, pool);
+    }
+
+    /**
+     * @param blockSize The maximum number of elements per block, rounded up to a power of two
+     */
     public LongList(int blockSize)
     {
-        if (blockSize < 1)
+        this(blockSize, MAX_ARRAY_LENGTH, null);
+    }
+
+    /**
+     * @param blockSize     The maximum number of elements per block, rounded up to a power of two
+     * @param sortRunLength The largest number of elements sorted as one array. Larger lists are sorted in runs of
+     *                      this length that are merged afterwards.
+     * @param pool          The pool to take blocks from, or null to allocate them
+     */
+    LongList(int blockSize, int sortRunLength, BlockPool pool)
+    {
+        if (blockSize < 1 || blockSize > 1 << 30)
         {
-            throw new IllegalArgumentException("blockSize cannot be less than 1");
+            throw new IllegalArgumentException("blockSize must be between 1 and 2^30");
         }
-        this.blockSize = blockSize;
+        this.maxShift = 32 - Integer.numberOfLeadingZeros(blockSize - 1);
+        this.maxBlockSize = 1 << maxShift;
+        this.firstShift = Math.min(maxShift, Integer.numberOfTrailingZeros(FIRST_BLOCK_SIZE));
+        this.fullBlockIndex = maxShift - firstShift + 1;
+        this.sortRunLength = sortRunLength;
+        this.pool = pool;
+        this.capacity = blockStart(MAX_ARRAY_LENGTH);
     }
 
     @Override
     public void add(long l)
     {
-        if (index == Integer.MAX_VALUE)
-        {
-            throw new IndexOutOfBoundsException("Cannot add more than " + Integer.MAX_VALUE + " entries");
-        }
-        if (index % blockSize == 0)
+        if (current == null || currentOffset == current.length)
         {
-            blocks.add(new long[blockSize]);
+            if (index == capacity)
+            {
+                throw new IndexOutOfBoundsException("Cannot add more than " + capacity + " entries");
+            }
+            current = allocate(blockSizeOf(blocks.size()));
+            currentOffset = 0;
+            blocks.add(current);
         }
-        final int blockIndex = index / blockSize;
-        blocks.get(blockIndex)[index % blockSize] = l;
+        current[currentOffset++] = l;
         index++;
 
         isSorted = false;
     }
 
+    private long[] allocate(final int size)
+    {
+        return pool != null ? pool.take(size) : new long[size];
+    }
+
+    private int blockSizeOf(final int block)
+    {
+        return block == 0 ? 1 << firstShift : 1 << Math.min(maxShift, firstShift + block - 1);
+    }
+
+    private long blockStart(final int block)
+    {
+        if (block == 0)
+        {
+            return 0;
+        }
+        if (block < fullBlockIndex)
+        {
+            return 1L << (firstShift + block - 1);
+        }
+        return (long) (block - fullBlockIndex + 1) << maxShift;
+    }
+
+    private int blockOf(final long index)
+    {
+        if (index >= maxBlockSize)
+        {
+            return fullBlockIndex - 1 + (int) (index >>> maxShift);
+        }
+        if (index < 1 << firstShift)
+        {
+            return 0;
+        }
+        return 63 - Long.numberOfLeadingZeros(index) - firstShift + 1;
+    }
+
+    private int offsetOf(final long index, final int block)
+    {
+        return (int) (index - blockStart(block));
+    }
+
+    @Override
+    public Long get(long index)
+    {
+        return getLong(index);
+    }
+
     @Override
-    public Long get(int index)
+    public long getLong(final long index)
     {
         if (index < 0 || index >= this.index)
         {
-            throw new ArrayIndexOutOfBoundsException(index);
+            throw new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for length " + this.index);
         }
-        final int blockIndex = index / blockSize;
-        return blocks.get(blockIndex)[index % blockSize];
+        final int block = blockOf(index);
+        return blocks.get(block)[offsetOf(index, block)];
     }
 
     @Override
-    public int size()
+    public long size()
     {
         return this.index;
     }
 
     @Override
-    public void set(final int index, final Long l)
+    public void set(final long index, final Long l)
     {
-        final int blockIndex = index / blockSize;
-        blocks.get(blockIndex)[index % blockSize] = Objects.requireNonNull(l);
+        setLong(index, Objects.requireNonNull(l));
+    }
+
+    @Override
+    public void setLong(final long index, final long l)
+    {
+        if (index < 0 || index >= this.index)
+        {
+            throw new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for length " + this.index);
+        }
+        final int block = blockOf(index);
+        blocks.get(block)[offsetOf(index, block)] = l;
         isSorted = false;
     }
 
     @Override
     public Iterator<Long> iterator()
     {
-        return new Iterator<>()
+        return longIterator();
+    }
+
+    private PrimitiveIterator.OfLong longIterator()
+    {
+        return new PrimitiveIterator.OfLong()
         {
-            private int idx = 0;
+            private long idx = 0;
 
             @Override
             public boolean hasNext()
@@ -108,9 +236,13 @@ public class LongList implements IndexedCollection<Long>
             }
 
             @Override
-            public Long next()
+            public long nextLong()
             {
-                return get(idx++);
+                if (idx >= index)
+                {
+                    throw new NoSuchElementException();
+                }
+                return getLong(idx++);
             }
         };
     }
@@ -120,50 +252,280 @@ public class LongList implements IndexedCollection<Long>
     {
         if (!isSorted)
         {
-            final long[] all = new long[size()];
-            for (int i = 0; i < blocks.size(); i++)
+            final int runLength = (int) Math.min(index, sortRunLength);
+            sortRuns(runLength);
+
+            if (index > runLength)
             {
-                final long[] src = blocks.get(i);
-                final int offset = i * blockSize;
-                final boolean isLast = i == blocks.size() - 1;
-                final int size = isLast ? index % blockSize == 0 ? blockSize : index % blockSize : blockSize;
-                System.arraycopy(src, 0, all, offset, size);
+                mergeRuns(runLength);
             }
-            Arrays.sort(all);
 
-            for (int i = 0; i < blocks.size(); i++)
+            this.isSorted = true;
+        }
+    }
+
+    /**
+     * Sort each run of the given length in place. The array used for sorting is dropped before any merge.
+     */
+    private void sortRuns(final int runLength)
+    {
+        final long[] run = new long[runLength];
+        for (long from = 0; from < index; from += runLength)
+        {
+            final int length = (int) Math.min(runLength, index - from);
+            copyTo(run, from, length);
+            if (length >= PARALLEL_THRESHOLD)
+            {
+                Arrays.parallelSort(run, 0, length);
+            }
+            else
             {
-                final long[] target = blocks.get(i);
-                final int offset = i * blockSize;
-                final boolean isLast = i == blocks.size() - 1;
-                final int size = isLast ? index % blockSize == 0 ? blockSize : index % blockSize : blockSize;
-                System.arraycopy(all, offset, target, 0, size);
+                Arrays.sort(run, 0, length);
             }
+            copyFrom(run, from, length);
+        }
+    }
 
-            this.isSorted = true;
+    private void copyFrom(final long[] src, final long to, final int len)
+    {
+        int copied = 0;
+        while (copied < len)
+        {
+            final long pos = to + copied;
+            final int block = blockOf(pos);
+            final long[] target = blocks.get(block);
+            final int offset = offsetOf(pos, block);
+            final int count = Math.min(target.length - offset, len - copied);
+            System.arraycopy(src, copied, target, offset, count);
+            copied += count;
+        }
+    }
+
+    /**
+     * Merge the sorted runs of the given length into new blocks. The next value is taken from the run at the top of a
+     * binary heap ordered by the smallest remaining value of each run. Every source block is freed once all of its
+     * values have been merged, so the merge needs little more memory than the list itself.
+     */
+    private void mergeRuns(final int runLength)
+    {
+        final int runCount = (int) ((index + runLength - 1) / runLength);
+        final long[] positions = new long[runCount];
+        final long[] ends = new long[runCount];
+        final long[] heads = new long[runCount];
+        final int[] heap = new int[runCount];
+        for (int i = 0; i < runCount; i++)
+        {
+            positions[i] = (long) i * runLength;
+            ends[i] = Math.min(index, positions[i] + runLength);
+            heads[i] = getLong(positions[i]);
+            heap[i] = i;
+        }
+        int heapSize = runCount;
+        for (int i = heapSize / 2 - 1; i >= 0; i--)
+        {
+            siftDown(heap, heapSize, i, heads);
+        }
+
+        final List<long[]> merged = new ArrayList<>(blocks.size());
+        long[] block = null;
+        int offset = 0;
+        while (heapSize > 0)
+        {
+            final int smallest = heap[0];
+            if (block == null || offset == block.length)
+            {
+                block = allocate(blockSizeOf(merged.size()));
+                merged.add(block);
+                offset = 0;
+            }
+            block[offset++] = heads[smallest];
+
+            final long next = ++positions[smallest];
+            final boolean exhausted = next == ends[smallest];
+            if (exhausted)
+            {
+                heap[0] = heap[--heapSize];
+            }
+            else
+            {
+                heads[smallest] = getLong(next);
+            }
+            siftDown(heap, heapSize, 0, heads);
+
+            if (exhausted || blockStart(blockOf(next)) == next)
+            {
+                // The run has left a source block, which may now be merged completely
+                freeIfMerged(blockOf(next - 1), runLength, positions, ends);
+            }
+        }
+        this.blocks = merged;
+        this.current = block;
+        this.currentOffset = offset;
+    }
+
+    private static void siftDown(final int[] heap, final int heapSize, final int from, final long[] heads)
+    {
+        final int run = heap[from];
+        int i = from;
+        int child;
+        while ((child = 2 * i + 1) < heapSize)
+        {
+            if (child + 1 < heapSize && heads[heap[child + 1]] < heads[heap[child]])
+            {
+                child++;
+            }
+            if (heads[heap[child]] >= heads[run])
+            {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
         }
+        heap[i] = run;
+    }
+
+    /**
+     * Free a source block during a merge, if every run overlapping it has moved past it
+     */
+    private void freeIfMerged(final int blockIndex, final int runLength, final long[] positions, final long[] ends)
+    {
+        final long[] block = blocks.get(blockIndex);
+        if (block == null)
+        {
+            return;
+        }
+
+        final long start = blockStart(blockIndex);
+        final long end = Math.min(index, start + block.length);
+        for (int run = (int) (start / runLength); run <= (end - 1) / runLength; run++)
+        {
+            if (positions[run] < Math.min(end, ends[run]))
+            {
+                return;
+            }
+        }
+        blocks.set(blockIndex, null);
+        free(block);
+    }
+
+    @Override
+    public boolean isSorted()
+    {
+        return isSorted;
     }
 
     @Override
     public Stream<Long> stream()
     {
-        final Iterable<Long> iterable = LongList.this;
-        return StreamSupport.stream(iterable.spliterator(), false);
+        return longStream().boxed();
+    }
+
+    @Override
+    public LongStream longStream()
+    {
+        return StreamSupport.longStream(new BlockSpliterator(0, index), false);
+    }
+
+    @Override
+    public void forEachLong(final LongConsumer consumer)
+    {
+        for (int i = 0; i < blocks.size(); i++)
+        {
+            final long[] block = blocks.get(i);
+            final int length = blockLength(i);
+            for (int j = 0; j < length; j++)
+            {
+                consumer.accept(block[j]);
+            }
+        }
+    }
+
+    @Override
+    public void copyTo(final long[] dst, final long from, final int len)
+    {
+        if (from < 0 || len < 0 || from + len > index)
+        {
+            throw new ArrayIndexOutOfBoundsException("Range " + from + " - " + (from + len) + " is outside of 0 - " + index);
+        }
+
+        int copied = 0;
+        while (copied < len)
+        {
+            final long pos = from + copied;
+            final int block = blockOf(pos);
+            final long[] source = blocks.get(block);
+            final int offset = offsetOf(pos, block);
+            final int count = Math.min(source.length - offset, len - copied);
+            System.arraycopy(source, offset, dst, copied, count);
+            copied += count;
+        }
+    }
+
+    /**
+     * Append a range of values with bulk copies into the blocks
+     *
+     * @param values The values to append
+     * @param offset The index of the first value to append
+     * @param length The number of values to append
+     */
+    public void addAll(final long[] values, final int offset, final int length)
+    {
+        int copied = 0;
+        while (copied < length)
+        {
+            if (current == null || currentOffset == current.length)
+            {
+                add(values[offset + copied++]);
+                continue;
+            }
+
+            final int count = Math.min(current.length - currentOffset, length - copied);
+            System.arraycopy(values, offset + copied, current, currentOffset, count);
+            currentOffset += count;
+            index += count;
+            copied += count;
+        }
+        isSorted = false;
     }
 
     @Override
     public LongList addAll(final Iterable<Long> values)
     {
-        values.forEach(this::add);
+        if (values instanceof LongList other)
+        {
+            for (int i = 0; i < other.blocks.size(); i++)
+            {
+                addAll(other.blocks.get(i), 0, other.blockLength(i));
+            }
+        }
+        else if (values instanceof IndexedCollection<Long> other)
+        {
+            final long[] buffer = new long[(int) Math.min(other.size(), maxBlockSize)];
+            for (long from = 0; from < other.size(); from += buffer.length)
+            {
+                final int length = (int) Math.min(buffer.length, other.size() - from);
+                other.copyTo(buffer, from, length);
+                addAll(buffer, 0, length);
+            }
+        }
+        else
+        {
+            values.forEach(this::add);
+        }
         return this;
     }
 
     public long sum()
     {
         long sum = 0;
-        for (long l : this)
+        for (int i = 0; i < blocks.size(); i++)
         {
-            sum += l;
+            final long[] block = blocks.get(i);
+            final int length = blockLength(i);
+            for (int j = 0; j < length; j++)
+            {
+                sum += block[j];
+            }
         }
         return sum;
     }
@@ -173,4 +535,100 @@ public class LongList implements IndexedCollection<Long>
     {
         return size() == 0;
     }
+
+    private int blockLength(final int blockIndex)
+    {
+        return blockIndex == blocks.size() - 1 ? currentOffset : blocks.get(blockIndex).length;
+    }
+
+    private void free(final long[] block)
+    {
+        if (pool != null)
+        {
+            pool.give(block);
+        }
+    }
+
+    /**
+     * Remove all values, returning the blocks to the pool if there is one
+     */
+    @Override
+    public void release()
+    {
+        blocks.forEach(this::free);
+        blocks = new ArrayList<>(4);
+        current = null;
+        currentOffset = 0;
+        index = 0;
+        isSorted = false;
+    }
+
+    /**
+     * Splits at block boundaries, so parallel streams get evenly sized chunks that are traversed as plain arrays
+     */
+    private final class BlockSpliterator implements Spliterator.OfLong
+    {
+        private long position;
+        private final long end;
+
+        private BlockSpliterator(final long position, final long end)
+        {
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public OfLong trySplit()
+        {
+            final long mid = blockStart(blockOf(position + (end - position) / 2));
+            if (mid <= position)
+            {
+                return null;
+            }
+            final BlockSpliterator prefix = new BlockSpliterator(position, mid);
+            position = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(final LongConsumer action)
+        {
+            if (position < end)
+            {
+                action.accept(getLong(position));
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(final LongConsumer action)
+        {
+            while (position < end)
+            {
+                final int blockIndex = blockOf(position);
+                final long[] block = blocks.get(blockIndex);
+                final int offset = offsetOf(position, blockIndex);
+                final int length = (int) Math.min(block.length - offset, end - position);
+                for (int i = 0; i < length; i++)
+                {
+                    action.accept(block[offset + i]);
+                }
+                position += length;
+            }
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return end - position;
+        }
+
+        @Override
+        public int characteristics()
+        {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+        }
+    }
 }
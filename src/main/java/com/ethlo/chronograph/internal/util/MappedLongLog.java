@@ -0,0 +1,319 @@
+package com.ethlo.chronograph.internal.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * Append-only log of long values in a memory-mapped file, for sample sets too large to keep in memory.
+ * <p>
+ * The file starts with an 8 byte header, followed by the values encoded as zig-zag variable length integers, so
+ * typical durations take 2 to 5 bytes. Nothing is created before the first value is added. The file is then mapped in
+ * segments as it grows, starting at {@link #MIN_SEGMENT_SIZE} bytes and doubling with the size of the file up to
+ * {@link #SEGMENT_SIZE} bytes. The values can only be read back in order, with {@link #forEach(LongConsumer)}.
+ * </p>
+ */
+public class MappedLongLog implements Closeable
+{
+    /**
+     * The largest number of bytes mapped at a time, 64 MiB
+     */
+    public static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * The number of bytes mapped for a new file, 64 KiB
+     */
+    public static final int MIN_SEGMENT_SIZE = 64 * 1024;
+
+    private static final long MAGIC = 0x43_48_52_4F_4C_4F_47_31L; // "CHROLOG1"
+    private static final int HEADER_SIZE = Long.BYTES;
+
+    private final Path directory;
+    private final String prefix;
+    private Path file;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentStart; // The number of bytes written while the log is closed
+    private long size;
+
+    /**
+     * Create a new, empty log
+     *
+     * @param file The file to write to. Any existing content is replaced once the first value is added.
+     */
+    public MappedLongLog(final Path file)
+    {
+        this.directory = null;
+        this.prefix = null;
+        this.file = file;
+    }
+
+    /**
+     * Create a new, empty log in a temporary file, which is created once the first value is added
+     *
+     * @param directory The directory of the file
+     * @param prefix    The prefix of the file name
+     */
+    public MappedLongLog(final Path directory, final String prefix)
+    {
+        this.directory = directory;
+        this.prefix = prefix;
+    }
+
+    public void add(final long value)
+    {
+        long encoded = (value << 1) ^ (value >> 63);
+        while ((encoded & ~0x7FL) != 0)
+        {
+            put((byte) ((encoded & 0x7F) | 0x80));
+            encoded >>>= 7;
+        }
+        put((byte) encoded);
+        size++;
+    }
+
+    private void put(final byte b)
+    {
+        if (segment == null || !segment.hasRemaining())
+        {
+            nextSegment();
+        }
+        segment.put(b);
+    }
+
+    private void nextSegment()
+    {
+        final long position = getByteSize();
+        open();
+
+        // Grow with the file, so small logs stay small and large logs are not remapped too often
+        final long length = Math.min(SEGMENT_SIZE, Math.max(MIN_SEGMENT_SIZE, position));
+        segment = map(FileChannel.MapMode.READ_WRITE, position, length);
+        segmentStart = position;
+        if (position == 0)
+        {
+            segment.putLong(MAGIC);
+        }
+    }
+
+    private void open()
+    {
+        if (channel != null)
+        {
+            return;
+        }
+
+        try
+        {
+            if (file == null)
+            {
+                file = Files.createTempFile(directory, prefix, ".samples");
+            }
+            channel = getByteSize() == 0
+                    ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                    : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        catch (IOException exc)
+        {
+            throw new UncheckedIOException("Cannot open sample log " + (file != null ? file : directory), exc);
+        }
+    }
+
+    private MappedByteBuffer map(final FileChannel.MapMode mode, final long position, final long length)
+    {
+        try
+        {
+            return channel.map(mode, position, length);
+        }
+        catch (IOException exc)
+        {
+            throw new UncheckedIOException("Cannot map sample log " + file, exc);
+        }
+    }
+
+    /**
+     * Read all values, in the order they were added. A closed log is opened for the duration of the call.
+     *
+     * @param consumer The consumer of the values
+     */
+    public void forEach(final LongConsumer consumer)
+    {
+        if (size == 0)
+        {
+            return;
+        }
+
+        final boolean closed = channel == null;
+        open();
+        try
+        {
+            read(consumer);
+        } finally
+        {
+            if (closed)
+            {
+                close();
+            }
+        }
+    }
+
+    private void read(final LongConsumer consumer)
+    {
+        final long end = getByteSize();
+        long encoded = 0;
+        int shift = 0;
+        for (long position = HEADER_SIZE; position < end; )
+        {
+            // Read from the segment being written, or map the earlier part of the file, decoding values that span
+            // two buffers as well
+            final ByteBuffer buffer;
+            final long bufferEnd;
+            if (segment != null && position >= segmentStart)
+            {
+                buffer = segment.duplicate();
+                buffer.position((int) (position - segmentStart));
+                bufferEnd = end;
+            }
+            else
+            {
+                bufferEnd = Math.min(segment != null ? segmentStart : end, position + SEGMENT_SIZE);
+                buffer = map(FileChannel.MapMode.READ_ONLY, position, bufferEnd - position);
+            }
+
+            for (long i = position; i < bufferEnd; i++)
+            {
+                final byte b = buffer.get();
+                encoded |= (b & 0x7FL) << shift;
+                if (b >= 0)
+                {
+                    consumer.accept((encoded >>> 1) ^ -(encoded & 1));
+                    encoded = 0;
+                    shift = 0;
+                }
+                else
+                {
+                    shift += 7;
+                }
+            }
+            position = bufferEnd;
+        }
+    }
+
+    /**
+     * The number of values in the log
+     *
+     * @return The number of values
+     */
+    public long size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * The number of bytes written, including the header
+     *
+     * @return The number of bytes
+     */
+    public long getByteSize()
+    {
+        return segment != null ? segmentStart + segment.position() : segmentStart;
+    }
+
+    /**
+     * The file of the log
+     *
+     * @return The file, or null if it has not been created yet
+     */
+    public Path getFile()
+    {
+        return file;
+    }
+
+    /**
+     * Close the file and trim it to the bytes written. The log can still be used, and opens the file again when
+     * needed.
+     */
+    @Override
+    public void close()
+    {
+        if (channel == null)
+        {
+            return;
+        }
+
+        try
+        {
+            final long length = getByteSize();
+            if (segment != null)
+            {
+                segment.force();
+            }
+            segment = null;
+            segmentStart = length;
+            channel.truncate(length);
+            channel.close();
+        }
+        catch (IOException exc)
+        {
+            throw new UncheckedIOException("Cannot close sample log " + file, exc);
+        } finally
+        {
+            channel = null;
+        }
+    }
+
+    /**
+     * Close the log and delete the file. The log is empty afterwards.
+     */
+    public void delete()
+    {
+        close();
+        segmentStart = 0;
+        size = 0;
+        if (file == null)
+        {
+            return;
+        }
+
+        try
+        {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException exc)
+        {
+            throw new UncheckedIOException("Cannot delete sample log " + file, exc);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.ethlo.chronograph.internal.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An upper limit of memory, in bytes, shared by several collections
+ */
+public class MemoryBudget
+{
+    private final long maxBytes;
+    private final AtomicLong reserved = new AtomicLong();
+
+    public MemoryBudget(final long maxBytes)
+    {
+        if (maxBytes < 0)
+        {
+            throw new IllegalArgumentException("maxBytes cannot be negative");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Reserve memory, if there is enough left
+     *
+     * @param bytes The number of bytes to reserve
+     * @return True if the memory was reserved, otherwise false
+     */
+    public boolean tryReserve(final long bytes)
+    {
+        long current;
+        do
+        {
+            current = reserved.get();
+            if (current + bytes > maxBytes)
+            {
+                return false;
+            }
+        }
+        while (!reserved.compareAndSet(current, current + bytes));
+        return true;
+    }
+
+    public void free(final long bytes)
+    {
+        reserved.addAndGet(-bytes);
+    }
+
+    public long getMaxBytes()
+    {
+        return maxBytes;
+    }
+
+    public long getReservedBytes()
+    {
+        return reserved.get();
+    }
+}
@@ -0,0 +1,312 @@
+package com.ethlo.chronograph.internal.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.ethlo.chronograph.OverflowPolicy;
+
+/**
+ * List of longs stored outside the Java heap, in direct buffers of a fixed number of elements.
+ * <p>
+ * Memory for every chunk is reserved from a {@link MemoryBudget}, and the {@link OverflowPolicy} decides what
+ * happens to new values when the budget is exhausted. {@link #release()} returns the memory to the budget and
+ * drops the buffers, which frees the native memory when they are garbage collected. Sorting and statistics work on
+ * temporary copies on the heap.
+ */
+public class OffHeapLongList implements IndexedCollection<Long>
+{
+    /**
+     * Elements per chunk, 64 KiB
+     */
+    public static final int CHUNK_SIZE = 8_192;
+
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_SIZE);
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final long CHUNK_BYTES = (long) CHUNK_SIZE * Long.BYTES;
+
+    private final MemoryBudget budget;
+    private final OverflowPolicy overflowPolicy;
+    private final List<LongBuffer> chunks = new ArrayList<>();
+    private long size;
+    private long discarded;
+    private long overwriteCursor;
+    private boolean isSorted;
+
+    public OffHeapLongList(final MemoryBudget budget, final OverflowPolicy overflowPolicy)
+    {
+        this.budget = Objects.requireNonNull(budget, "budget");
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy, "overflowPolicy");
+    }
+
+    @Override
+    public void add(final long value)
+    {
+        if ((size & CHUNK_MASK) == 0 && (size >>> CHUNK_SHIFT) == chunks.size() && !allocateChunk())
+        {
+            overflow(value);
+            return;
+        }
+
+        chunks.get((int) (size >>> CHUNK_SHIFT)).put((int) (size & CHUNK_MASK), value);
+        size++;
+        isSorted = false;
+    }
+
+    private boolean allocateChunk()
+    {
+        if (chunks.size() == LongList.MAX_ARRAY_LENGTH || !budget.tryReserve(CHUNK_BYTES))
+        {
+            return false;
+        }
+        chunks.add(ByteBuffer.allocateDirect((int) CHUNK_BYTES).order(ByteOrder.nativeOrder()).asLongBuffer());
+        return true;
+    }
+
+    private void overflow(final long value)
+    {
+        switch (overflowPolicy)
+        {
+            case DISCARD -> discarded++;
+            case OVERWRITE ->
+            {
+                if (size == 0)
+                {
+                    discarded++;
+                }
+                else
+                {
+                    setLong(overwriteCursor++ % size, value);
+                }
+            }
+            case FAIL -> throw new IllegalStateException("Sample storage limit of " + budget.getMaxBytes() + " bytes is exhausted");
+        }
+    }
+
+    /**
+     * Remove all values and return the memory to the budget
+     */
+    @Override
+    public void release()
+    {
+        budget.free(chunks.size() * CHUNK_BYTES);
+        chunks.clear();
+        size = 0;
+        overwriteCursor = 0;
+        isSorted = false;
+    }
+
+    /**
+     * The number of values that could not be stored
+     *
+     * @return The number of discarded values
+     */
+    public long getDiscarded()
+    {
+        return discarded;
+    }
+
+    @Override
+    public Long get(final long index)
+    {
+        return getLong(index);
+    }
+
+    @Override
+    public long getLong(final long index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return chunks.get((int) (index >>> CHUNK_SHIFT)).get((int) (index & CHUNK_MASK));
+    }
+
+    @Override
+    public long size()
+    {
+        return size;
+    }
+
+    @Override
+    public void set(final long index, final Long value)
+    {
+        setLong(index, Objects.requireNonNull(value));
+    }
+
+    @Override
+    public void setLong(final long index, final long value)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        chunks.get((int) (index >>> CHUNK_SHIFT)).put((int) (index & CHUNK_MASK), value);
+        isSorted = false;
+    }
+
+    @Override
+    public void sort()
+    {
+        if (!isSorted)
+        {
+            if (size > LongList.MAX_ARRAY_LENGTH)
+            {
+                throw new UnsupportedOperationException("Cannot sort more than " + LongList.MAX_ARRAY_LENGTH + " values off-heap");
+            }
+
+            final long[] all = new long[(int) size];
+            copyTo(all, 0, all.length);
+            if (all.length >= LongList.PARALLEL_THRESHOLD)
+            {
+                Arrays.parallelSort(all);
+            }
+            else
+            {
+                Arrays.sort(all);
+            }
+
+            for (int i = 0; i < chunks.size(); i++)
+            {
+                final int offset = i << CHUNK_SHIFT;
+                chunks.get(i).put(0, all, offset, Math.min(CHUNK_SIZE, all.length - offset));
+            }
+            isSorted = true;
+        }
+    }
+
+    @Override
+    public boolean isSorted()
+    {
+        return isSorted;
+    }
+
+    @Override
+    public Iterator<Long> iterator()
+    {
+        return longIterator();
+    }
+
+    private PrimitiveIterator.OfLong longIterator()
+    {
+        return new PrimitiveIterator.OfLong()
+        {
+            private long idx = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return idx < size;
+            }
+
+            @Override
+            public long nextLong()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                return getLong(idx++);
+            }
+        };
+    }
+
+    @Override
+    public Stream<Long> stream()
+    {
+        return longStream().boxed();
+    }
+
+    @Override
+    public LongStream longStream()
+    {
+        return StreamSupport.longStream(Spliterators.spliterator(longIterator(), size, Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public void forEachLong(final LongConsumer consumer)
+    {
+        for (int i = 0; i < chunks.size(); i++)
+        {
+            final LongBuffer chunk = chunks.get(i);
+            final int length = (int) Math.min(CHUNK_SIZE, size - ((long) i << CHUNK_SHIFT));
+            for (int j = 0; j < length; j++)
+            {
+                consumer.accept(chunk.get(j));
+            }
+        }
+    }
+
+    @Override
+    public void copyTo(final long[] dst, final long from, final int len)
+    {
+        if (from < 0 || len < 0 || from + len > size)
+        {
+            throw new ArrayIndexOutOfBoundsException("Range " + from + " - " + (from + len) + " is outside of 0 - " + size);
+        }
+
+        int copied = 0;
+        while (copied < len)
+        {
+            final long pos = from + copied;
+            final int offset = (int) (pos & CHUNK_MASK);
+            final int count = Math.min(CHUNK_SIZE - offset, len - copied);
+            chunks.get((int) (pos >>> CHUNK_SHIFT)).get(offset, dst, copied, count);
+            copied += count;
+        }
+    }
+
+    @Override
+    public OffHeapLongList addAll(final Iterable<Long> values)
+    {
+        if (values instanceof IndexedCollection<Long> other)
+        {
+            other.forEachLong(this::add);
+        }
+        else
+        {
+            values.forEach(this::add);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+}
@@ -0,0 +1,168 @@
+package com.ethlo.chronograph.internal.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Count, sum, min, max, mean and variance of a stream of samples, updated in constant time per sample.
+ * The mean and variance are maintained with Welford's algorithm, and instances can be merged with the parallel
+ * variant of it (Chan et al.).
+ */
+public class RunningStatistics
+{
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private double mean;
+    private double m2;
+
+    public void record(final long value)
+    {
+        count++;
+        sum += value;
+        if (value < min)
+        {
+            min = value;
+        }
+        if (value > max)
+        {
+            max = value;
+        }
+        final double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+    }
+
+    public void merge(final RunningStatistics other)
+    {
+        if (other.count == 0)
+        {
+            return;
+        }
+        if (count == 0)
+        {
+            count = other.count;
+            sum = other.sum;
+            min = other.min;
+            max = other.max;
+            mean = other.mean;
+            m2 = other.m2;
+            return;
+        }
+
+        final long total = count + other.count;
+        final double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Create statistics for a larger population, of which these statistics cover a sample. Min, max and variance are
+     * taken from the sample, while the count and sum are replaced.
+     *
+     * @param count The number of values in the population
+     * @param sum   The sum of the values in the population
+     * @return The new statistics
+     */
+    public RunningStatistics withTotals(final long count, final long sum)
+    {
+        final RunningStatistics result = new RunningStatistics();
+        if (count == 0)
+        {
+            return result;
+        }
+        result.count = count;
+        result.sum = sum;
+        result.mean = sum / (double) count;
+        if (this.count > 0)
+        {
+            result.min = min;
+            result.max = max;
+            result.m2 = getVariance() * count;
+        }
+        else
+        {
+            // Nothing is known about the distribution, so treat every value as the mean
+            result.min = sum / count;
+            result.max = sum / count;
+        }
+        return result;
+    }
+
+    public void reset()
+    {
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+        mean = 0;
+        m2 = 0;
+    }
+
+    public boolean isEmpty()
+    {
+        return count == 0;
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    public long getSum()
+    {
+        return sum;
+    }
+
+    public long getMin()
+    {
+        return min;
+    }
+
+    public long getMax()
+    {
+        return max;
+    }
+
+    public double getMean()
+    {
+        return mean;
+    }
+
+    /**
+     * The population variance of the samples
+     *
+     * @return The variance, or 0 if there are no samples
+     */
+    public double getVariance()
+    {
+        return count == 0 ? 0 : m2 / count;
+    }
+
+    public double getStandardDeviation()
+    {
+        return Math.sqrt(getVariance());
+    }
+}
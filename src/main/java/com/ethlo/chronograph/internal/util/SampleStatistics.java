@@ -0,0 +1,67 @@
+package com.ethlo.chronograph.internal.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Read-only view of the statistics of a set of samples, independent of how the samples are stored.
+ * All value accessors return null when there are no samples.
+ */
+public interface SampleStatistics
+{
+    boolean isEmpty();
+
+    long size();
+
+    long sum();
+
+    Long getMin();
+
+    Long getMax();
+
+    Long getAverage();
+
+    Long getMedian();
+
+    Long getPercentile(double percentile);
+
+    /**
+     * Get several percentiles at once, which implementations may answer more efficiently than one at a time
+     *
+     * @param percentiles The percentiles to get
+     * @return The value of each percentile, in the same order, or null if there are no samples
+     */
+    default long[] getPercentiles(double... percentiles)
+    {
+        if (isEmpty())
+        {
+            return null;
+        }
+
+        final long[] result = new long[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++)
+        {
+            result[i] = getPercentile(percentiles[i]);
+        }
+        return result;
+    }
+
+    Long getStandardDeviation();
+}
@@ -0,0 +1,237 @@
+package com.ethlo.chronograph.internal.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+
+/**
+ * Selection of order statistics, i.e. the values at given ranks in sorted order, without sorting all values.
+ * <p>
+ * This is an introselect: a quickselect with median-of-three pivots and three-way partitioning, which falls back to
+ * sorting a sub-range if partitioning does not make progress, so the worst case stays at <code>O(n log n)</code>.
+ * Several ranks are answered in the same partitioning pass, descending only into the parts that contain a
+ * requested rank.
+ * <p>
+ * Collections too large to copy into an array are handled by a radix select instead, which streams over the values
+ * once per 16-bit digit and keeps only a count per digit value for each distinct prefix of the requested ranks.
+ */
+public final class Selection
+{
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+    private static final int RADIX_BITS = 16;
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    private Selection()
+    {
+    }
+
+    /**
+     * Find the values at the given ranks. The array is reordered in the process.
+     *
+     * @param values The values to select from
+     * @param ranks  The zero-based ranks to find, in any order
+     * @return The value at each of the ranks, in the same order as the ranks
+     */
+    public static long[] select(final long[] values, final int... ranks)
+    {
+        final int[] sortedRanks = ranks.clone();
+        Arrays.sort(sortedRanks);
+        for (int rank : sortedRanks)
+        {
+            if (rank < 0 || rank >= values.length)
+            {
+                throw new IndexOutOfBoundsException("Rank " + rank + " is out of bounds for " + values.length + " values");
+            }
+        }
+
+        if (sortedRanks.length > 0)
+        {
+            final int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(values.length));
+            select(values, 0, values.length - 1, sortedRanks, 0, sortedRanks.length - 1, depthLimit);
+        }
+
+        final long[] result = new long[ranks.length];
+        for (int i = 0; i < ranks.length; i++)
+        {
+            result[i] = values[ranks[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Find the values at the given ranks without copying or reordering the collection.
+     *
+     * @param values The values to select from
+     * @param ranks  The zero-based ranks to find, in any order
+     * @return The value at each of the ranks, in the same order as the ranks
+     */
+    public static long[] select(final IndexedCollection<Long> values, final long... ranks)
+    {
+        final long size = values.size();
+        final long[] remaining = ranks.clone();
+        for (long rank : remaining)
+        {
+            if (rank < 0 || rank >= size)
+            {
+                throw new IndexOutOfBoundsException("Rank " + rank + " is out of bounds for " + size + " values");
+            }
+        }
+
+        // Values with the sign bit flipped, so unsigned digit order matches signed value order
+        final long[] prefixes = new long[ranks.length];
+        for (int shift = Long.SIZE - RADIX_BITS; shift >= 0; shift -= RADIX_BITS)
+        {
+            final long[] distinct = Arrays.stream(prefixes).distinct().toArray();
+            final long[][] counts = new long[distinct.length][RADIX];
+            final int digitShift = shift;
+            final int prefixShift = shift + RADIX_BITS;
+            values.forEachLong(value ->
+            {
+                final long unsigned = value ^ Long.MIN_VALUE;
+                final long prefix = prefixShift == Long.SIZE ? 0 : unsigned >>> prefixShift;
+                for (int i = 0; i < distinct.length; i++)
+                {
+                    if (distinct[i] == prefix)
+                    {
+                        counts[i][(int) (unsigned >>> digitShift) & (RADIX - 1)]++;
+                        break;
+                    }
+                }
+            });
+
+            for (int i = 0; i < prefixes.length; i++)
+            {
+                final long[] digitCounts = counts[indexOf(distinct, prefixes[i])];
+                int digit = 0;
+                while (remaining[i] >= digitCounts[digit])
+                {
+                    remaining[i] -= digitCounts[digit++];
+                }
+                prefixes[i] = (prefixes[i] << RADIX_BITS) | digit;
+            }
+        }
+
+        final long[] result = new long[ranks.length];
+        for (int i = 0; i < ranks.length; i++)
+        {
+            result[i] = prefixes[i] ^ Long.MIN_VALUE;
+        }
+        return result;
+    }
+
+    private static int indexOf(final long[] values, final long value)
+    {
+        for (int i = 0; i < values.length; i++)
+        {
+            if (values[i] == value)
+            {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Missing prefix " + value);
+    }
+
+    private static void select(final long[] a, int lo, final int hi, final int[] ranks, int rlo, final int rhi, int depth)
+    {
+        while (rlo <= rhi)
+        {
+            if (hi - lo < INSERTION_SORT_THRESHOLD)
+            {
+                insertionSort(a, lo, hi);
+                return;
+            }
+            if (depth-- == 0)
+            {
+                Arrays.sort(a, lo, hi + 1);
+                return;
+            }
+
+            // Three-way partition: [lo, lt) < pivot, [lt, gt] == pivot, (gt, hi] > pivot
+            final long pivot = medianOfThree(a[lo], a[(lo + hi) >>> 1], a[hi]);
+            int lt = lo;
+            int i = lo;
+            int gt = hi;
+            while (i <= gt)
+            {
+                final long value = a[i];
+                if (value < pivot)
+                {
+                    swap(a, lt++, i++);
+                }
+                else if (value > pivot)
+                {
+                    swap(a, i, gt--);
+                }
+                else
+                {
+                    i++;
+                }
+            }
+
+            int left = rlo;
+            while (left <= rhi && ranks[left] < lt)
+            {
+                left++;
+            }
+            int right = left;
+            while (right <= rhi && ranks[right] <= gt)
+            {
+                right++;
+            }
+
+            // Ranks within the pivot range are already in place
+            select(a, lo, lt - 1, ranks, rlo, left - 1, depth);
+            lo = gt + 1;
+            rlo = right;
+        }
+    }
+
+    private static long medianOfThree(final long a, final long b, final long c)
+    {
+        if (a < b)
+        {
+            return b < c ? b : Math.max(a, c);
+        }
+        return a < c ? a : Math.max(b, c);
+    }
+
+    private static void insertionSort(final long[] a, final int lo, final int hi)
+    {
+        for (int i = lo + 1; i <= hi; i++)
+        {
+            final long value = a[i];
+            int j = i - 1;
+            while (j >= lo && a[j] > value)
+            {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = value;
+        }
+    }
+
+    private static void swap(final long[] a, final int i, final int j)
+    {
+        final long tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+}
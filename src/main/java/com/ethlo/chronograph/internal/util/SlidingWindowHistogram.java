@@ -0,0 +1,222 @@
+package com.ethlo.chronograph.internal.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.time.Duration;
+
+/**
+ * A ring of {@link LogLinearHistogram}s, one per time slot, for the statistics of the most recent samples.
+ * <p>
+ * A sample is recorded into the slot of its timestamp. When the ring wraps around, the oldest slot is cleared and
+ * reused, so the memory use is bounded by the number of slots regardless of the number of samples. A window is
+ * answered by merging the slots it covers, rounded up to whole slots and including the current, partial slot.
+ * Samples older than the span of the ring are dropped.
+ * </p>
+ * <p>
+ * Timestamps are in nanoseconds, typically from {@link System#nanoTime()}. Instances are not thread safe.
+ * </p>
+ */
+public class SlidingWindowHistogram
+{
+    private static final long UNUSED = Long.MIN_VALUE;
+
+    private final double relativeError;
+    private final long slotNanos;
+    private final LogLinearHistogram[] slots;
+    private final long[] slotEpochs;
+
+    /**
+     * Create a ring
+     *
+     * @param relativeError The maximum relative error of the slot histograms
+     * @param slot          The length of each slot
+     * @param slotCount     The number of slots, so the longest window is <code>slot * slotCount</code>
+     */
+    public SlidingWindowHistogram(final double relativeError, final Duration slot, final int slotCount)
+    {
+        if (slot.isNegative() || slot.isZero())
+        {
+            throw new IllegalArgumentException("slot must be positive: " + slot);
+        }
+        if (slotCount < 1)
+        {
+            throw new IllegalArgumentException("slotCount cannot be less than 1");
+        }
+        this.relativeError = relativeError;
+        this.slotNanos = slot.toNanos();
+        this.slots = new LogLinearHistogram[slotCount];
+        this.slotEpochs = new long[slotCount];
+        for (int i = 0; i < slotCount; i++)
+        {
+            slots[i] = new LogLinearHistogram(relativeError);
+            slotEpochs[i] = UNUSED;
+        }
+    }
+
+    private SlidingWindowHistogram(final SlidingWindowHistogram source)
+    {
+        this.relativeError = source.relativeError;
+        this.slotNanos = source.slotNanos;
+        this.slots = new LogLinearHistogram[source.slots.length];
+        for (int i = 0; i < slots.length; i++)
+        {
+            slots[i] = source.slots[i].copy();
+        }
+        this.slotEpochs = source.slotEpochs.clone();
+    }
+
+    public void record(final long value, final long timestamp)
+    {
+        final LogLinearHistogram slot = slotOf(Math.floorDiv(timestamp, slotNanos));
+        if (slot != null)
+        {
+            slot.record(value);
+        }
+    }
+
+    /**
+     * Add all values of a histogram to the slot of the given timestamp
+     *
+     * @param histogram The histogram to add, with the same precision as this ring
+     * @param timestamp The timestamp of the values
+     */
+    public void record(final LogLinearHistogram histogram, final long timestamp)
+    {
+        if (histogram.isEmpty())
+        {
+            return;
+        }
+        final LogLinearHistogram slot = slotOf(Math.floorDiv(timestamp, slotNanos));
+        if (slot != null)
+        {
+            slot.merge(histogram);
+        }
+    }
+
+    /**
+     * Merge the slots of another ring with the same slot length into this ring, matched by time
+     *
+     * @param other The ring to merge
+     */
+    public void merge(final SlidingWindowHistogram other)
+    {
+        if (other.slotNanos != slotNanos)
+        {
+            throw new IllegalArgumentException("Cannot merge windows with different slot lengths");
+        }
+
+        for (int i = 0; i < other.slots.length; i++)
+        {
+            final long epoch = other.slotEpochs[i];
+            if (epoch != UNUSED)
+            {
+                final LogLinearHistogram slot = slotOf(epoch);
+                if (slot != null)
+                {
+                    final LogLinearHistogram values = other.slots[i];
+                    slot.merge(values.getRelativeError() == relativeError ? values : values.withRelativeError(relativeError));
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the slot of the given epoch, clearing it if it holds an older epoch
+     *
+     * @return The slot, or null if the ring has already moved past the epoch
+     */
+    private LogLinearHistogram slotOf(final long epoch)
+    {
+        final int index = (int) Math.floorMod(epoch, (long) slots.length);
+        final long current = slotEpochs[index];
+        if (current == epoch)
+        {
+            return slots[index];
+        }
+        if (current != UNUSED && current > epoch)
+        {
+            return null;
+        }
+        slots[index].reset();
+        slotEpochs[index] = epoch;
+        return slots[index];
+    }
+
+    /**
+     * Get the values recorded within a window that ends at the given time
+     *
+     * @param window The length of the window, no longer than {@link #getSpan()}
+     * @param now    The end of the window
+     * @return A new histogram with the values of the window
+     */
+    public LogLinearHistogram getWindow(final Duration window, final long now)
+    {
+        final long windowNanos = window.toNanos();
+        if (windowNanos <= 0 || windowNanos > slotNanos * slots.length)
+        {
+            throw new IllegalArgumentException("window must be positive and no longer than " + getSpan() + ": " + window);
+        }
+
+        final long slotCount = (windowNanos + slotNanos - 1) / slotNanos;
+        final long currentEpoch = Math.floorDiv(now, slotNanos);
+        final LogLinearHistogram result = new LogLinearHistogram(relativeError);
+        for (long epoch = currentEpoch - slotCount + 1; epoch <= currentEpoch; epoch++)
+        {
+            final int index = (int) Math.floorMod(epoch, (long) slots.length);
+            if (slotEpochs[index] == epoch)
+            {
+                result.merge(slots[index]);
+            }
+        }
+        return result;
+    }
+
+    public SlidingWindowHistogram copy()
+    {
+        return new SlidingWindowHistogram(this);
+    }
+
+    /**
+     * Create an empty ring with the same slots and precision
+     *
+     * @return The new ring
+     */
+    public SlidingWindowHistogram emptyCopy()
+    {
+        return new SlidingWindowHistogram(relativeError, Duration.ofNanos(slotNanos), slots.length);
+    }
+
+    public double getRelativeError()
+    {
+        return relativeError;
+    }
+
+    /**
+     * Get the longest window that can be answered
+     *
+     * @return the length of all slots combined
+     */
+    public Duration getSpan()
+    {
+        return Duration.ofNanos(slotNanos * slots.length);
+    }
+}
@@ -0,0 +1,224 @@
+package com.ethlo.chronograph.internal.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A histogram that is written concurrently through per-thread {@link Stripe}s. Each stripe has a single writer,
+ * so recording never contends with other writers.
+ * <p>
+ * Every stripe records into one of two buffers. Readers swap the buffers, wait with a {@link WriterReaderPhaser} for
+ * the writer to leave the buffer it was using, and fold it into the totals kept on the reader side. Recording is
+ * therefore wait-free, and is never blocked by readers.
+ * </p>
+ * <p>
+ * A stripe refers weakly to the thread that created it. Once that thread has ended, the next drain folds the stripe
+ * into the totals and drops it, so short-lived threads do not leave stripes behind. Stripes are only dropped on the
+ * reader side, so writers never wait for a drain, even when creating a stripe.
+ * </p>
+ */
+public class StripedHistogram
+{
+    private final double relativeError;
+    private final Queue<Stripe> stripes = new ConcurrentLinkedQueue<>();
+
+    // Only accessed by readers, while holding the lock of this instance
+    private final LogLinearHistogram total;
+    private LogLinearHistogram interval;
+    private final SlidingWindowHistogram window;
+    private long lastDrain = System.nanoTime();
+
+    public StripedHistogram(final double relativeError)
+    {
+        this(relativeError, null);
+    }
+
+    /**
+     * Create a histogram that also keeps the values in a sliding window. The values are added to the window when the
+     * stripes are drained, with the time halfway between this and the previous drain, so {@link #drain()} should be
+     * called at least once per slot.
+     *
+     * @param relativeError The maximum relative error
+     * @param window        The window, or null
+     */
+    public StripedHistogram(final double relativeError, final SlidingWindowHistogram window)
+    {
+        this.relativeError = relativeError;
+        this.total = new LogLinearHistogram(relativeError);
+        this.interval = new LogLinearHistogram(relativeError);
+        this.window = window;
+    }
+
+    /**
+     * Create an empty histogram with the same precision and window
+     *
+     * @return The new histogram
+     */
+    public StripedHistogram emptyCopy()
+    {
+        return new StripedHistogram(relativeError, window != null ? window.emptyCopy() : null);
+    }
+
+    public double getRelativeError()
+    {
+        return relativeError;
+    }
+
+    /**
+     * Create a new stripe for the current thread. The returned stripe must only be written to by that thread.
+     *
+     * @return A new stripe, registered with this histogram
+     */
+    public Stripe newStripe()
+    {
+        final Stripe stripe = new Stripe(relativeError);
+        stripes.add(stripe);
+        return stripe;
+    }
+
+    /**
+     * Returns the number of stripes that have not been dropped yet
+     *
+     * @return The number of stripes
+     */
+    public int getStripeCount()
+    {
+        return stripes.size();
+    }
+
+    /**
+     * Returns a point-in-time copy of the data of all stripes combined
+     *
+     * @return A new histogram instance
+     */
+    public synchronized LogLinearHistogram snapshot()
+    {
+        drain();
+        return total.copy();
+    }
+
+    /**
+     * Returns the data recorded by all stripes since the previous call, and starts a new interval. The data of each
+     * stripe is swapped out atomically, so every sample is part of exactly one interval. The totals returned by
+     * {@link #snapshot()} are not affected.
+     *
+     * @return A new histogram instance
+     */
+    public synchronized LogLinearHistogram snapshotAndReset()
+    {
+        drain();
+        final LogLinearHistogram result = interval;
+        interval = new LogLinearHistogram(relativeError);
+        return result;
+    }
+
+    /**
+     * Returns a point-in-time copy of the sliding window
+     *
+     * @return A new instance, or null if this histogram has no window
+     */
+    public synchronized SlidingWindowHistogram windowSnapshot()
+    {
+        if (window == null)
+        {
+            return null;
+        }
+        drain();
+        return window.copy();
+    }
+
+    /**
+     * Move the values recorded by the stripes to the reader side, and drop the stripes of threads that have ended
+     */
+    public synchronized void drain()
+    {
+        final long now = System.nanoTime();
+        final long timestamp = lastDrain + (now - lastDrain) / 2;
+        lastDrain = now;
+        for (Iterator<Stripe> iterator = stripes.iterator(); iterator.hasNext(); )
+        {
+            final Stripe stripe = iterator.next();
+
+            // Checked before the swap, so an ended thread cannot have recorded anything after it
+            if (!stripe.isOwnerAlive())
+            {
+                iterator.remove();
+            }
+            final LogLinearHistogram recorded = stripe.swap();
+            total.merge(recorded);
+            interval.merge(recorded);
+            if (window != null)
+            {
+                window.record(recorded, timestamp);
+            }
+            recorded.reset();
+        }
+    }
+
+    public static final class Stripe
+    {
+        private final WriterReaderPhaser phaser = new WriterReaderPhaser();
+        private final WeakReference<Thread> owner = new WeakReference<>(Thread.currentThread());
+        private volatile LogLinearHistogram active;
+        private LogLinearHistogram inactive;
+
+        private Stripe(final double relativeError)
+        {
+            this.active = new LogLinearHistogram(relativeError);
+            this.inactive = new LogLinearHistogram(relativeError);
+        }
+
+        public void record(final long value)
+        {
+            final long criticalValue = phaser.writerCriticalSectionEnter();
+            try
+            {
+                active.record(value);
+            } finally
+            {
+                phaser.writerCriticalSectionExit(criticalValue);
+            }
+        }
+
+        private boolean isOwnerAlive()
+        {
+            final Thread thread = owner.get();
+            return thread != null && thread.isAlive();
+        }
+
+        /**
+         * Redirect the writer to the empty buffer, and return the buffer it was using once the writer has left it.
+         * The returned buffer must be reset before the next swap.
+         */
+        LogLinearHistogram swap()
+        {
+            final LogLinearHistogram recorded = active;
+            active = inactive;
+            phaser.flipPhase();
+            inactive = recorded;
+            return recorded;
+        }
+    }
+}
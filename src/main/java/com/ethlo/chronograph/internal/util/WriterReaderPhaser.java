@@ -0,0 +1,102 @@
+package com.ethlo.chronograph.internal.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Coordinates wait-free writers with a reader that swaps out the data they write to, as described by Gil Tene for
+ * HdrHistogram.
+ * <p>
+ * Writers wrap each update in {@link #writerCriticalSectionEnter()} and {@link #writerCriticalSectionExit(long)},
+ * which are a single atomic increment each and never wait. The reader first redirects the writers to a new
+ * destination, then calls {@link #flipPhase()}, which returns once every writer that may still have seen the old
+ * destination has left its critical section. The old destination can then be read without further coordination.
+ * </p>
+ * <p>
+ * Only one reader may flip the phase at a time, which is left to the caller.
+ * </p>
+ */
+public class WriterReaderPhaser
+{
+    private static final AtomicLongFieldUpdater<WriterReaderPhaser> START_EPOCH = AtomicLongFieldUpdater.newUpdater(WriterReaderPhaser.class, "startEpoch");
+    private static final AtomicLongFieldUpdater<WriterReaderPhaser> EVEN_END_EPOCH = AtomicLongFieldUpdater.newUpdater(WriterReaderPhaser.class, "evenEndEpoch");
+    private static final AtomicLongFieldUpdater<WriterReaderPhaser> ODD_END_EPOCH = AtomicLongFieldUpdater.newUpdater(WriterReaderPhaser.class, "oddEndEpoch");
+
+    // The phase is even while the start epoch counts up from 0, and odd while it counts up from Long.MIN_VALUE
+    private volatile long startEpoch = 0;
+    private volatile long evenEndEpoch = 0;
+    private volatile long oddEndEpoch = Long.MIN_VALUE;
+
+    /**
+     * Enter a writer critical section
+     *
+     * @return A value to pass to {@link #writerCriticalSectionExit(long)}
+     */
+    public long writerCriticalSectionEnter()
+    {
+        return START_EPOCH.getAndIncrement(this);
+    }
+
+    /**
+     * Leave a writer critical section
+     *
+     * @param criticalValueAtEnter The value returned by the matching {@link #writerCriticalSectionEnter()}
+     */
+    public void writerCriticalSectionExit(final long criticalValueAtEnter)
+    {
+        if (criticalValueAtEnter < 0)
+        {
+            ODD_END_EPOCH.getAndIncrement(this);
+        }
+        else
+        {
+            EVEN_END_EPOCH.getAndIncrement(this);
+        }
+    }
+
+    /**
+     * Start a new phase, and wait until all writers that entered during the previous phase have left
+     */
+    public void flipPhase()
+    {
+        final boolean nextPhaseIsEven = startEpoch < 0;
+        final long initialStartValue = nextPhaseIsEven ? 0 : Long.MIN_VALUE;
+
+        // Reset the end epoch of the next phase before any writer can enter it
+        if (nextPhaseIsEven)
+        {
+            evenEndEpoch = initialStartValue;
+        }
+        else
+        {
+            oddEndEpoch = initialStartValue;
+        }
+
+        final long startValueAtFlip = START_EPOCH.getAndSet(this, initialStartValue);
+        while ((nextPhaseIsEven ? oddEndEpoch : evenEndEpoch) != startValueAtFlip)
+        {
+            // A writer may have been descheduled inside its critical section, so give it a chance to run
+            Thread.yield();
+        }
+    }
+}
@@ -23,10 +23,8 @@ package com.ethlo.chronograph.output.json;
 import java.io.Serializable;
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import com.ethlo.chronograph.OutputConfig;
 import com.ethlo.chronograph.TaskInfo;
@@ -40,9 +38,15 @@ public class JsonTaskInfo implements Serializable
     private final Duration subtasksTime;
     private final Duration selfTime;
     private final long invocationCount;
+    private final Duration instrumentationOverhead;
     private final SerializableTaskStatistics statistics;
 
     public JsonTaskInfo(String name, List<JsonTaskInfo> subtasks, Duration totalTime, Duration subtasksTime, final Duration selfTime, final long invocationCount, SerializableTaskStatistics taskStatistics)
+    {
+        this(name, subtasks, totalTime, subtasksTime, selfTime, invocationCount, Duration.ZERO, taskStatistics);
+    }
+
+    public JsonTaskInfo(String name, List<JsonTaskInfo> subtasks, Duration totalTime, Duration subtasksTime, final Duration selfTime, final long invocationCount, final Duration instrumentationOverhead, SerializableTaskStatistics taskStatistics)
     {
         this.name = name;
         this.subtasks = subtasks;
@@ -50,6 +54,7 @@ public class JsonTaskInfo implements Serializable
         this.subtasksTime = subtasksTime;
         this.selfTime = selfTime;
         this.invocationCount = invocationCount;
+        this.instrumentationOverhead = instrumentationOverhead;
         this.statistics = taskStatistics;
     }
 
@@ -62,13 +67,12 @@ public class JsonTaskInfo implements Serializable
         if (source.getInvocations() > 1)
         {
             final PerformanceStatistics statistics = source.getStatistics();
-            final Map<Double, Duration> percentiles = Arrays.stream(config.percentiles()).boxed()
-                    .collect(Collectors.toMap(l -> l, statistics::getPercentile));
+            final Map<Double, Duration> percentiles = statistics.getPercentiles(config.percentiles());
             taskStatistics = new SerializableTaskStatistics(statistics.getAverage(), statistics.getMedian(),
                     statistics.getMin(), statistics.getMax(), statistics.getStandardDeviation(), percentiles
             );
         }
-        return new JsonTaskInfo(source.getName(), processed, source.getTime(), source.getSubtasksTime(), source.getSelfTime(), source.getInvocations(), taskStatistics);
+        return new JsonTaskInfo(source.getName(), processed, source.getTime(), source.getSubtasksTime(), source.getSelfTime(), source.getInvocations(), source.getInstrumentationOverhead(), taskStatistics);
     }
 
     private static void processChildren(List<TaskInfo> children, final List<JsonTaskInfo> processed, OutputConfig outputConfig)
@@ -109,6 +113,11 @@ public class JsonTaskInfo implements Serializable
         return invocationCount;
     }
 
+    public Duration getInstrumentationOverhead()
+    {
+        return instrumentationOverhead;
+    }
+
     public SerializableTaskStatistics getStatistics()
     {
         return statistics;
@@ -29,6 +29,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import com.ethlo.chronograph.TaskInfo;
@@ -36,6 +37,7 @@ import com.ethlo.chronograph.internal.ascii.TableRow;
 import com.ethlo.chronograph.ChronographData;
 import com.ethlo.chronograph.OutputConfig;
 import com.ethlo.chronograph.internal.MutableTaskInfo;
+import com.ethlo.chronograph.internal.TaskSnapshot;
 import com.ethlo.chronograph.statistics.PerformanceStatistics;
 import com.ethlo.chronograph.internal.ascii.ReportUtil;
 import com.ethlo.chronograph.internal.ascii.SeparatorRow;
@@ -74,6 +76,11 @@ public class TableOutputFormatter implements OutputFormatter
         final boolean multipleInvocations = invocations > 1;
         final PerformanceStatistics performanceStatistics = taskInfo.getStatistics();
 
+        // Fetch all percentiles in one pass, which also resolves the median
+        final Map<Double, Duration> percentiles = multipleInvocations && outputConfig.percentiles() != null
+                ? performanceStatistics.getPercentiles(outputConfig.percentiles())
+                : Map.of();
+
         outputTotal(outputConfig, row, taskInfo, totalTime);
 
         addInvocations(outputConfig, taskInfo, nf, row, invocations);
@@ -84,18 +91,18 @@ public class TableOutputFormatter implements OutputFormatter
         conditionalOutput(row, multipleInvocations, outputConfig.average(), performanceStatistics.getAverage());
         conditionalOutput(row, multipleInvocations, outputConfig.min(), performanceStatistics.getMin());
         conditionalOutput(row, multipleInvocations, outputConfig.max(), performanceStatistics.getMax());
-        outputPercentiles(outputConfig, row, multipleInvocations, performanceStatistics);
+        outputPercentiles(outputConfig, row, multipleInvocations, percentiles);
 
         return row;
     }
 
-    private static void outputPercentiles(final OutputConfig outputConfig, final TableRow row, final boolean multipleInvocations, final PerformanceStatistics performanceStatistics)
+    private static void outputPercentiles(final OutputConfig outputConfig, final TableRow row, final boolean multipleInvocations, final Map<Double, Duration> percentiles)
     {
         if (outputConfig.percentiles() != null)
         {
             for (double percentile : outputConfig.percentiles())
             {
-                outputCell(row, multipleInvocations, performanceStatistics.getPercentile(percentile));
+                outputCell(row, multipleInvocations, percentiles.get(percentile));
             }
         }
     }
@@ -274,9 +281,19 @@ public class TableOutputFormatter implements OutputFormatter
         final long diff = parentDuration.toNanos() - allAtLevel;
         if (diff / (double) parentDuration.toNanos() > outputConfig.overheadThreshold())
         {
-            final MutableTaskInfo overheadTask = new MutableTaskInfo(outputConfig.overheadName(), (MutableTaskInfo) children.get(0).getParent());
-            overheadTask.addMeasurement(diff);
-            combined.add(overheadTask);
+            final TaskInfo parent = children.get(0).getParent();
+            if (parent instanceof MutableTaskInfo mutableParent)
+            {
+                // Kept in the task tree, so the unaccounted time is part of the data as well as the report
+                final MutableTaskInfo overheadTask = new MutableTaskInfo(outputConfig.overheadName(), mutableParent);
+                overheadTask.addMeasurement(diff);
+                combined.add(overheadTask);
+            }
+            else
+            {
+                // Snapshots are immutable, so the row only refers to its parent
+                combined.add(TaskSnapshot.detached(outputConfig.overheadName(), parent, diff));
+            }
         }
 
         for (TaskInfo taskInfo : combined)
@@ -23,17 +23,18 @@ package com.ethlo.chronograph.statistics;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Duration;
-import java.util.Optional;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
-import com.ethlo.chronograph.internal.util.IndexedCollectionStatistics;
+import com.ethlo.chronograph.internal.util.SampleStatistics;
 
 /**
- * Class that holds and calculates performance statistics from an indexed collection of durations.
+ * Class that holds and calculates performance statistics from a collection of durations.
  * Provides various statistics such as average, median, percentile, min, max, and standard deviation.
  */
 public class PerformanceStatistics
 {
-    private final IndexedCollectionStatistics collectionStatistics;
+    private final SampleStatistics collectionStatistics;
     private final long totalInvocations;
     private final long totalElapsed;
 
@@ -41,11 +42,11 @@ public class PerformanceStatistics
      * Constructs a PerformanceStatistics instance with the given collection statistics,
      * total invocations, and total elapsed time.
      *
-     * @param collectionStatistics The indexed collection of statistics.
+     * @param collectionStatistics The statistics of the collected samples.
      * @param totalInvocations     The total number of invocations.
      * @param totalElapsed         The total elapsed time in nanoseconds.
      */
-    public PerformanceStatistics(final IndexedCollectionStatistics collectionStatistics, long totalInvocations, long totalElapsed)
+    public PerformanceStatistics(final SampleStatistics collectionStatistics, long totalInvocations, long totalElapsed)
     {
         this.collectionStatistics = collectionStatistics;
         this.totalInvocations = totalInvocations;
@@ -55,9 +56,9 @@ public class PerformanceStatistics
     /**
      * Constructs a PerformanceStatistics instance using the collection statistics' size and sum.
      *
-     * @param collectionStatistics The indexed collection of statistics.
+     * @param collectionStatistics The statistics of the collected samples.
      */
-    public PerformanceStatistics(IndexedCollectionStatistics collectionStatistics)
+    public PerformanceStatistics(SampleStatistics collectionStatistics)
     {
         this(collectionStatistics, collectionStatistics.size(), collectionStatistics.sum());
     }
@@ -79,7 +80,7 @@ public class PerformanceStatistics
      */
     public boolean isEmpty()
     {
-        return collectionStatistics.getList().isEmpty();
+        return collectionStatistics.isEmpty();
     }
 
     /**
@@ -114,7 +115,7 @@ public class PerformanceStatistics
      */
     public Duration getMedian()
     {
-        return getDuration(collectionStatistics.getMedian());
+        return isEmpty() ? null : Duration.ofNanos(collectionStatistics.getMedian());
     }
 
     /**
@@ -125,7 +126,24 @@ public class PerformanceStatistics
      */
     public Duration getPercentile(double limit)
     {
-        return getDuration(collectionStatistics.getPercentile(limit));
+        return isEmpty() ? null : Duration.ofNanos(collectionStatistics.getPercentile(limit));
+    }
+
+    /**
+     * Returns the elapsed times at several percentiles, which is faster than requesting them one at a time.
+     *
+     * @param percentiles The percentiles to retrieve (between 0 and 100).
+     * @return The elapsed time for each of the given percentiles, in the same order. The values are null if there are no samples.
+     */
+    public Map<Double, Duration> getPercentiles(double... percentiles)
+    {
+        final Map<Double, Duration> result = new LinkedHashMap<>();
+        final long[] values = collectionStatistics.getPercentiles(percentiles);
+        for (int i = 0; i < percentiles.length; i++)
+        {
+            result.put(percentiles[i], values != null ? Duration.ofNanos(values[i]) : null);
+        }
+        return result;
     }
 
     /**
@@ -135,7 +153,7 @@ public class PerformanceStatistics
      */
     public Duration getMin()
     {
-        return getDuration(collectionStatistics.getMin());
+        return isEmpty() ? null : Duration.ofNanos(collectionStatistics.getMin());
     }
 
     /**
@@ -145,7 +163,7 @@ public class PerformanceStatistics
      */
     public Duration getMax()
     {
-        return getDuration(collectionStatistics.getMax());
+        return isEmpty() ? null : Duration.ofNanos(collectionStatistics.getMax());
     }
 
     /**
@@ -155,11 +173,6 @@ public class PerformanceStatistics
      */
     public Duration getStandardDeviation()
     {
-        return getDuration(collectionStatistics.getStandardDeviation());
-    }
-
-    private Duration getDuration(Number d)
-    {
-        return Optional.ofNullable(d).map(dur -> Duration.ofNanos(dur.longValue())).orElse(null);
+        return isEmpty() ? null : Duration.ofNanos(collectionStatistics.getStandardDeviation());
     }
 }
\ No newline at end of file
@@ -22,7 +22,7 @@ package com.ethlo.sampler;
 
 import java.time.Duration;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
@@ -32,21 +32,29 @@ import java.util.function.Consumer;
  *
  * @param <T> The result type to sample.
  */
-public class ScheduledSampleRater<T> extends SampleRater<T>
+public class ScheduledSampleRater<T> extends SampleRater<T> implements AutoCloseable
 {
     private final ScheduledExecutorService executor;
+    private final SharedScheduler.Lease lease;
     private volatile boolean ready = true;
+    private volatile boolean closed;
+    private volatile ScheduledFuture<?> next;
 
     /**
      * Constructs a ScheduledSampleRater with the specified sampling interval and listener for progress updates.
-     * Uses a single-threaded executor for scheduling.
+     * Uses the {@link SharedScheduler} for scheduling, until {@link #close()} is called.
      *
      * @param interval                The time interval between progress updates.
      * @param sampledProgressListener The listener to receive progress updates.
      */
     public ScheduledSampleRater(Duration interval, final Consumer<TaskProgress<T>> sampledProgressListener)
     {
-        this(new ScheduledThreadPoolExecutor(1), interval, sampledProgressListener);
+        this(SharedScheduler.acquire(), interval, sampledProgressListener);
+    }
+
+    private ScheduledSampleRater(final SharedScheduler.Lease lease, final Duration interval, final Consumer<TaskProgress<T>> sampledProgressListener)
+    {
+        this(lease.executor(), lease, interval, sampledProgressListener);
     }
 
     /**
@@ -57,9 +65,15 @@ public class ScheduledSampleRater<T> extends SampleRater<T>
      * @param sampledProgressListener The listener to receive progress updates.
      */
     public ScheduledSampleRater(final ScheduledExecutorService executor, final Duration interval, final Consumer<TaskProgress<T>> sampledProgressListener)
+    {
+        this(executor, null, interval, sampledProgressListener);
+    }
+
+    private ScheduledSampleRater(final ScheduledExecutorService executor, final SharedScheduler.Lease lease, final Duration interval, final Consumer<TaskProgress<T>> sampledProgressListener)
     {
         super(sampledProgressListener);
         this.executor = executor;
+        this.lease = lease;
         scheduleNext(interval);
     }
 
@@ -88,7 +102,29 @@ public class ScheduledSampleRater<T> extends SampleRater<T>
      */
     private void scheduleNext(Duration interval)
     {
-        executor.schedule(() -> scheduleNext(interval), interval.toNanos(), TimeUnit.NANOSECONDS);
+        if (closed)
+        {
+            return;
+        }
+        next = executor.schedule(() -> scheduleNext(interval), interval.toNanos(), TimeUnit.NANOSECONDS);
         ready = true;
     }
+
+    /**
+     * Stops the scheduling of progress updates, and releases the shared scheduler if it was acquired by this instance.
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+        final ScheduledFuture<?> scheduled = next;
+        if (scheduled != null)
+        {
+            scheduled.cancel(false);
+        }
+        if (lease != null)
+        {
+            lease.close();
+        }
+    }
 }
@@ -0,0 +1,112 @@
+package com.ethlo.sampler;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * A single, lazily started timer thread shared by everything that needs periodic scheduling.
+ * <p>
+ * The scheduler is started when the first {@link Lease} is acquired, and shut down again when the last lease is
+ * closed. Its thread is a daemon thread, so it never keeps the JVM alive.
+ * </p>
+ */
+public final class SharedScheduler
+{
+    private static final Object LOCK = new Object();
+    private static ScheduledThreadPoolExecutor executor;
+    private static int leases;
+
+    private SharedScheduler()
+    {
+    }
+
+    /**
+     * Acquire a lease on the shared scheduler, starting it if needed.
+     *
+     * @return A lease that must be closed when the scheduler is no longer needed
+     */
+    public static Lease acquire()
+    {
+        synchronized (LOCK)
+        {
+            if (executor == null)
+            {
+                executor = new ScheduledThreadPoolExecutor(1, runnable ->
+                {
+                    final Thread thread = new Thread(runnable, "chronograph-scheduler");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                executor.setRemoveOnCancelPolicy(true);
+            }
+            leases++;
+            return new Lease(executor);
+        }
+    }
+
+    private static void release()
+    {
+        synchronized (LOCK)
+        {
+            leases--;
+            if (leases == 0)
+            {
+                executor.shutdownNow();
+                executor = null;
+            }
+        }
+    }
+
+    /**
+     * A handle to the shared scheduler. Closing it more than once has no effect.
+     */
+    public static final class Lease implements AutoCloseable
+    {
+        private final ScheduledExecutorService executor;
+        private boolean closed;
+
+        private Lease(final ScheduledExecutorService executor)
+        {
+            this.executor = executor;
+        }
+
+        public ScheduledExecutorService executor()
+        {
+            return executor;
+        }
+
+        @Override
+        public void close()
+        {
+            synchronized (this)
+            {
+                if (closed)
+                {
+                    return;
+                }
+                closed = true;
+            }
+            release();
+        }
+    }
+}
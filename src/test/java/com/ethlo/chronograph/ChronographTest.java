@@ -28,6 +28,7 @@ import java.util.List;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import com.ethlo.chronograph.internal.TaskSnapshot;
 import com.ethlo.chronograph.internal.ascii.ReportUtil;
 import com.ethlo.chronograph.output.table.TableOutputFormatter;
 import com.ethlo.chronograph.output.table.TableThemes;
@@ -269,6 +270,30 @@ public class ChronographTest extends BaseTest
         assertThat(chronograph.getTasks()).isEmpty();
     }
 
+    @Test
+    void returnedDataSurvivesResetAll()
+    {
+        final Chronograph chronograph = Chronograph.create();
+        for (int i = 0; i < 10_000; i++)
+        {
+            chronograph.start(taskName);
+            chronograph.stop();
+        }
+        final ChronographData data = chronograph.getTaskData();
+        chronograph.resetAll();
+
+        // The samples of returned tasks must not be recycled by the reset
+        for (int i = 0; i < 10_000; i++)
+        {
+            chronograph.start(taskName);
+            chronograph.stop();
+        }
+        final TaskInfo task = data.getTasks().get(0);
+        assertThat(task.getInvocations()).isEqualTo(10_000);
+        assertThat(task.getSampleSize()).isEqualTo(10_000);
+        assertThat(task.getStatistics().getMedian()).isNotNull();
+    }
+
     @Test
     void testIsRunning()
     {
@@ -341,6 +366,160 @@ public class ChronographTest extends BaseTest
         assertThat(true).isTrue();
     }
 
+    @Test
+    void mergeManyLeavesInputsUntouched()
+    {
+        final List<Chronograph> chronographs = new java.util.ArrayList<>();
+        for (int i = 0; i < 8; i++)
+        {
+            final Chronograph chronograph = Chronograph.create();
+            chronograph.start("root");
+            for (int j = 0; j <= i; j++)
+            {
+                chronograph.start("child-" + j);
+                chronograph.stop();
+            }
+            chronograph.stop();
+            chronographs.add(chronograph);
+        }
+
+        final ChronographData merged = ChronographData.merge("merged", chronographs);
+        assertThat(merged.getRootTasks()).hasSize(1);
+        final TaskInfo root = merged.getRootTasks().get(0);
+        assertThat(root.getInvocations()).isEqualTo(8);
+        assertThat(root.getSubtasks()).extracting(TaskInfo::getName).startsWith("child-0", "child-1").hasSize(8);
+        assertThat(root.getSubtasks().get(0).getInvocations()).isEqualTo(8);
+        assertThat(root.getSubtasks().get(7).getInvocations()).isEqualTo(1);
+
+        assertThat(chronographs.get(0).getTask("root").getInvocations()).isEqualTo(1);
+        assertThat(chronographs.get(0).getTask("root").getSubtasks()).hasSize(1);
+        assertThat(merged.getTotalInvocations()).isEqualTo(8 + 36);
+    }
+
+    @Test
+    void snapshotsAreUnaffectedByLaterRecording()
+    {
+        final Chronograph chronograph = Chronograph.create();
+        for (int i = 0; i < 10; i++)
+        {
+            chronograph.start("root");
+            chronograph.start("child");
+            chronograph.stop();
+            chronograph.stop();
+        }
+
+        final ChronographData first = chronograph.snapshot();
+        assertThat(first.getRootTasks().get(0)).isInstanceOf(TaskSnapshot.class);
+        assertThat(first.getTotalInvocations()).isEqualTo(20);
+
+        chronograph.start("root");
+        chronograph.stop();
+        final ChronographData second = chronograph.publish();
+        assertThat(first.getTotalInvocations()).isEqualTo(20);
+        assertThat(second.getTotalInvocations()).isEqualTo(21);
+        assertThat(chronograph.getPublished()).isSameAs(second);
+
+        final ChronographData merged = ChronographData.mergeAll("merged", List.of(first, second));
+        final TaskInfo root = merged.getRootTasks().get(0);
+        assertThat(root.getInvocations()).isEqualTo(21);
+        assertThat(root.getSubtasks().get(0).getInvocations()).isEqualTo(20);
+        assertThat(root.getStatistics().getTotalInvocations()).isEqualTo(21);
+        assertThat(first.getRootTasks().get(0).getInvocations()).isEqualTo(10);
+        assertThat(chronograph.getTask("root").getInvocations()).isEqualTo(11);
+    }
+
+    @Test
+    void mergeOfHistogramAndRawSamplesDoesNotDependOnOrder()
+    {
+        final Chronograph raw = Chronograph.create();
+        final Chronograph histogram = Chronograph.create(CaptureConfig.histogram(0.05));
+        for (int i = 0; i < 10; i++)
+        {
+            raw.start("task");
+            raw.start("child");
+            raw.stop();
+            raw.stop();
+            histogram.start("task");
+            histogram.stop();
+        }
+
+        for (List<Chronograph> input : List.of(List.of(histogram, raw), List.of(raw, histogram)))
+        {
+            final ChronographData merged = ChronographData.merge("merged", input);
+            final TaskInfo task = merged.getRootTasks().get(0);
+            assertThat(task.getInvocations()).isEqualTo(20);
+            assertThat(task.getSubtasks().get(0).getInvocations()).isEqualTo(10);
+        }
+        assertThat(raw.getTaskData().mergeInto("merged", histogram.getTaskData()).getTotalInvocations()).isEqualTo(30);
+    }
+
+    @Test
+    void mergeKeepsInvocationsWithoutRetainedSamples()
+    {
+        final Chronograph discarding = Chronograph.create(CaptureConfig.offHeap(65_536, OverflowPolicy.DISCARD));
+        final Chronograph histogram = Chronograph.create(CaptureConfig.histogram(0.05));
+        for (int i = 0; i < 100_000; i++)
+        {
+            discarding.start("task");
+            discarding.stop();
+        }
+        histogram.start("task");
+        histogram.stop();
+        assertThat(discarding.getTasks().get(0).getSampleSize()).isLessThan(100_000);
+
+        assertThat(ChronographData.merge("merged", List.of(histogram, discarding)).getTotalInvocations()).isEqualTo(100_001);
+        assertThat(ChronographData.merge("merged", List.of(discarding, histogram)).getTotalInvocations()).isEqualTo(100_001);
+        assertThat(histogram.getTaskData().mergeInto("merged", discarding.getTaskData()).getTotalInvocations()).isEqualTo(100_001);
+    }
+
+    @Test
+    void closeReturnsOffHeapMemory()
+    {
+        final CaptureConfig config = CaptureConfig.offHeap(65_536, OverflowPolicy.DISCARD);
+        for (int n = 0; n < 10; n++)
+        {
+            try (Chronograph chronograph = Chronograph.create(config))
+            {
+                for (int i = 0; i < 10_000; i++)
+                {
+                    chronograph.start("task");
+                    chronograph.stop();
+                }
+            }
+        }
+
+        final Chronograph closed = Chronograph.create(config);
+        closed.start("task");
+        closed.stop();
+        closed.close();
+        final TaskInfo task = closed.getTasks().get(0);
+        assertThat(task.getSampleSize()).isEqualTo(1);
+        assertThat(task.getStatistics().getMedian()).isNotNull();
+        assertThat(ChronographData.merge("merged", List.of(closed, closed)).getRootTasks().get(0).getSampleSize()).isEqualTo(2);
+    }
+
+    @Test
+    void parallelMergeMatchesSequentialMerge()
+    {
+        final List<Chronograph> chronographs = new java.util.ArrayList<>();
+        for (int i = 0; i < 64; i++)
+        {
+            final Chronograph chronograph = Chronograph.create();
+            chronograph.start("root-" + i % 5);
+            chronograph.start("child");
+            chronograph.stop();
+            chronograph.stop();
+            chronographs.add(chronograph);
+        }
+
+        final ChronographData sequential = ChronographData.merge("merged", chronographs);
+        final ChronographData parallel = ChronographData.mergeParallel("merged", chronographs, 3);
+        assertThat(parallel.getTotalInvocations()).isEqualTo(sequential.getTotalInvocations()).isEqualTo(128);
+        assertThat(parallel.getRootTasks()).extracting(TaskInfo::getName).containsExactlyInAnyOrderElementsOf(
+                sequential.getRootTasks().stream().map(TaskInfo::getName).toList());
+        assertThat(parallel.getTotalTime()).isEqualTo(sequential.getTotalTime());
+    }
+
     @Test
     void recursiveStartCompatibility()
     {
@@ -389,4 +568,195 @@ public class ChronographTest extends BaseTest
         assertThat(chronograph.getTaskData().getRootTasks()).hasSize(2); // A and B
         assertThat(chronograph.getTaskData().getTasks()).hasSize(4); // All 4
     }
+
+    @Test
+    void rateLimitedCaptureWithTaskOverride()
+    {
+        final CaptureConfig captureConfig = CaptureConfig.builder()
+                .task("hot", CaptureConfig.minInterval(Duration.ofSeconds(10)))
+                .build();
+
+        try (Chronograph chronograph = Chronograph.create(captureConfig))
+        {
+            for (int i = 0; i < 10_000; i++)
+            {
+                assertThat(chronograph.start("hot")).isTrue();
+                assertThat(chronograph.stop()).isTrue();
+            }
+            for (int i = 0; i < 100; i++)
+            {
+                chronograph.time("rare", () -> {});
+            }
+
+            final TaskInfo hot = chronograph.getTask("hot");
+            assertThat(hot.getInvocations()).isEqualTo(10_000);
+            assertThat(hot.getSampleSize()).isEqualTo(1);
+
+            final TaskInfo rare = chronograph.getTask("rare");
+            assertThat(rare.getInvocations()).isEqualTo(100);
+            assertThat(rare.getSampleSize()).isEqualTo(100);
+        }
+    }
+
+    @Test
+    void estimatedOverheadIncludesDescendants()
+    {
+        final Calibration calibration = Calibration.of(Duration.ofNanos(20), Duration.ofNanos(100), Duration.ofNanos(1_000));
+        final CaptureConfig captureConfig = CaptureConfig.builder()
+                .overhead(OverheadMode.ESTIMATE)
+                .calibration(calibration)
+                .build();
+
+        try (Chronograph chronograph = Chronograph.create(captureConfig))
+        {
+            chronograph.time("parent", () ->
+            {
+                for (int i = 0; i < 10; i++)
+                {
+                    chronograph.time("child", () -> busy(1));
+                }
+            });
+
+            final TaskInfo parent = chronograph.getTask("parent");
+            assertThat(parent.getInstrumentationOverhead()).isEqualTo(Duration.ofNanos(100 + 10 * 1_000));
+            assertThat(chronograph.getTask("child").getInstrumentationOverhead()).isEqualTo(Duration.ofNanos(10 * 100));
+            assertThat(parent.getTime()).isGreaterThanOrEqualTo(Duration.ofMillis(10));
+        }
+    }
+
+    @Test
+    void subtractedOverheadNeverExceedsMeasurement()
+    {
+        final Calibration calibration = Calibration.of(Duration.ZERO, Duration.ofSeconds(1), Duration.ofSeconds(1));
+        final CaptureConfig captureConfig = CaptureConfig.builder()
+                .overhead(OverheadMode.SUBTRACT)
+                .calibration(calibration)
+                .build();
+
+        try (Chronograph chronograph = Chronograph.create(captureConfig))
+        {
+            chronograph.time("task", () -> busy(1));
+
+            final TaskInfo task = chronograph.getTask("task");
+            assertThat(task.getTime()).isEqualTo(Duration.ZERO);
+            assertThat(task.getInstrumentationOverhead()).isGreaterThanOrEqualTo(Duration.ofMillis(1));
+        }
+    }
+
+    @Test
+    void calibrationOfRunningJvm()
+    {
+        final Calibration calibration = Calibration.get();
+        assertThat(calibration).isSameAs(Calibration.get());
+        assertThat(calibration.getNestedOverhead()).isGreaterThanOrEqualTo(calibration.getTimerOverhead());
+        assertThat(calibration.getNestedOverhead()).isLessThan(Duration.ofMillis(1));
+    }
+
+    @Test
+    void taskHandles()
+    {
+        final Chronograph chronograph = Chronograph.create();
+        final TaskHandle outer = chronograph.task("outer");
+        final TaskHandle inner = chronograph.task("inner");
+        assertThat(chronograph.task("outer")).isSameAs(outer);
+
+        for (int i = 0; i < 100; i++)
+        {
+            assertThat(outer.start()).isTrue();
+            assertThat(inner.start()).isTrue();
+            assertThat(outer.stop()).as("Only the most recently started task can be stopped").isFalse();
+            assertThat(inner.stop()).isTrue();
+            assertThat(outer.stop()).isTrue();
+        }
+
+        // Handles and names resolve to the same tasks
+        chronograph.start("outer");
+        assertThat(inner.start()).isTrue();
+        assertThat(chronograph.start("inner")).as("Should not allow re-entry of same name").isFalse();
+        chronograph.stopAll();
+
+        assertThat(chronograph.getTaskData().getTasks()).hasSize(2);
+        assertThat(chronograph.getTask("outer").getInvocations()).isEqualTo(101);
+        assertThat(chronograph.getTask("inner").getInvocations()).isEqualTo(101);
+
+        chronograph.resetAll();
+        assertThat(outer.start()).isTrue();
+        assertThat(outer.stop()).isTrue();
+        assertThat(chronograph.getTask("outer").getInvocations()).isEqualTo(1);
+    }
+
+    @Test
+    void handlesAreDroppedOnReset()
+    {
+        final Chronograph chronograph = Chronograph.create();
+        final TaskHandle old = chronograph.task("task");
+        for (int i = 0; i < 10_000; i++)
+        {
+            chronograph.start("distinct-" + i);
+            chronograph.stop();
+        }
+
+        chronograph.resetAll();
+        final TaskHandle renewed = chronograph.task("task");
+        assertThat(renewed).isNotSameAs(old);
+        assertThat(renewed.start()).isTrue();
+        assertThat(old.stop()).as("Both handles refer to the same task").isTrue();
+        assertThat(old.start()).isTrue();
+        assertThat(old.stop()).isTrue();
+        assertThat(chronograph.getTask("task").getInvocations()).isEqualTo(2);
+        assertThat(chronograph.getTasks()).hasSize(1);
+    }
+
+    @Test
+    void handleRegistryIsBounded()
+    {
+        final Chronograph chronograph = Chronograph.create();
+        for (int i = 0; i < 10_000; i++)
+        {
+            chronograph.start("distinct-" + i);
+            chronograph.stop();
+        }
+        assertThat(chronograph.task("distinct-0")).isSameAs(chronograph.task("distinct-0"));
+
+        // Names beyond the limit get a handle per call, and still resolve to the same task
+        final TaskHandle first = chronograph.task("distinct-9999");
+        final TaskHandle second = chronograph.task("distinct-9999");
+        assertThat(first).isNotSameAs(second);
+        assertThat(first.start()).isTrue();
+        assertThat(second.stop()).isTrue();
+        try (TaskScope scope = chronograph.scope("distinct-9999"))
+        {
+            assertThat(scope.isOpen()).isTrue();
+        }
+        assertThat(chronograph.getTask("distinct-9999").getInvocations()).isEqualTo(3);
+        assertThat(chronograph.getTasks()).hasSize(10_000);
+    }
+
+    @Test
+    void taskScopes()
+    {
+        final Chronograph chronograph = Chronograph.create();
+        for (int i = 0; i < 10; i++)
+        {
+            try (TaskScope outer = chronograph.scope("outer"))
+            {
+                assertThat(outer.isOpen()).isTrue();
+                try (TaskScope inner = chronograph.scope("inner"))
+                {
+                    assertThat(inner).isNotSameAs(outer);
+                    try (TaskScope recursive = chronograph.scope("outer"))
+                    {
+                        assertThat(recursive.isOpen()).as("Should not allow re-entry of same name").isFalse();
+                    }
+                    assertThat(chronograph.isRunning("inner")).isTrue();
+                }
+                chronograph.start("leaked");
+            }
+            assertThat(chronograph.isAnyRunning()).isFalse();
+        }
+
+        assertThat(chronograph.getTask("outer").getInvocations()).isEqualTo(10);
+        assertThat(chronograph.getTask("inner").getInvocations()).isEqualTo(10);
+        assertThat(chronograph.getTask("leaked").getInvocations()).isEqualTo(10);
+    }
 }
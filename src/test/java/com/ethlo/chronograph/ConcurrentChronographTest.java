@@ -0,0 +1,157 @@
+package com.ethlo.chronograph;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class ConcurrentChronographTest
+{
+    @Test
+    void sharedAcrossThreads() throws InterruptedException
+    {
+        final ConcurrentChronograph chronograph = ConcurrentChronograph.create("shared");
+        final int threads = 8;
+        final int iterations = 10_000;
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++)
+        {
+            executorService.submit(() ->
+            {
+                for (int j = 0; j < iterations; j++)
+                {
+                    chronograph.time("request", () -> chronograph.time("query", () -> {}));
+                }
+            });
+        }
+        executorService.shutdown();
+        assertThat(executorService.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+        final List<TaskInfo> tasks = chronograph.getTasks();
+        assertThat(tasks).hasSize(1);
+        final TaskInfo request = tasks.get(0);
+        assertThat(request.getName()).isEqualTo("request");
+        assertThat(request.getInvocations()).isEqualTo(threads * iterations);
+        assertThat(request.getSubtasks()).hasSize(1);
+        assertThat(request.getSubtasks().get(0).getInvocations()).isEqualTo(threads * iterations);
+    }
+
+    @Test
+    void snapshotWhileRecording() throws InterruptedException
+    {
+        final ConcurrentChronograph chronograph = ConcurrentChronograph.create();
+        final Thread writer = new Thread(() ->
+        {
+            for (int i = 0; i < 100_000; i++)
+            {
+                chronograph.time("task", () -> {});
+            }
+        });
+        writer.start();
+
+        long last = 0;
+        while (writer.isAlive())
+        {
+            final long invocations = chronograph.getTaskData().getTotalInvocations();
+            assertThat(invocations).isGreaterThanOrEqualTo(last);
+            last = invocations;
+        }
+        writer.join();
+        assertThat(chronograph.getTaskData().getTotalInvocations()).isEqualTo(100_000);
+    }
+
+    @Test
+    void intervalsAddUpToTotal() throws InterruptedException
+    {
+        final ConcurrentChronograph chronograph = ConcurrentChronograph.create();
+        final Thread writer = new Thread(() ->
+        {
+            for (int i = 0; i < 100_000; i++)
+            {
+                chronograph.time("task", () -> chronograph.time("subtask", () -> {}));
+            }
+        });
+        writer.start();
+
+        long reported = 0;
+        while (writer.isAlive())
+        {
+            reported += chronograph.snapshotAndReset().getTotalInvocations();
+        }
+        writer.join();
+        reported += chronograph.snapshotAndReset().getTotalInvocations();
+
+        assertThat(reported).isEqualTo(200_000);
+        assertThat(chronograph.getTaskData().getTotalInvocations()).isEqualTo(200_000);
+
+        final ChronographData empty = chronograph.snapshotAndReset();
+        assertThat(empty.getRootTasks()).hasSize(1);
+        assertThat(empty.getRootTasks().get(0).getSubtasks()).hasSize(1);
+        assertThat(empty.getTotalInvocations()).isZero();
+    }
+
+    @Test
+    void reportsIntervals() throws InterruptedException
+    {
+        final ConcurrentChronograph chronograph = ConcurrentChronograph.create();
+        chronograph.time("task", () -> {});
+
+        final BlockingQueue<ChronographData> intervals = new LinkedBlockingQueue<>();
+        try (IntervalReporter ignored = chronograph.report(Duration.ofMillis(10), intervals::add))
+        {
+            assertThat(intervals.poll(1, TimeUnit.MINUTES).getTotalInvocations()).isEqualTo(1);
+            assertThat(intervals.poll(1, TimeUnit.MINUTES).getTotalInvocations()).isZero();
+        }
+    }
+
+    @Test
+    void stackIsPerThread() throws InterruptedException
+    {
+        final ConcurrentChronograph chronograph = ConcurrentChronograph.create();
+        assertThat(chronograph.start("outer")).isTrue();
+
+        final boolean[] otherThread = new boolean[2];
+        final Thread thread = new Thread(() ->
+        {
+            otherThread[0] = chronograph.isAnyRunning();
+            otherThread[1] = chronograph.start("outer");
+            chronograph.stop();
+        });
+        thread.start();
+        thread.join();
+
+        assertThat(otherThread[0]).isFalse();
+        assertThat(otherThread[1]).isTrue();
+        assertThat(chronograph.isAnyRunning()).isTrue();
+        chronograph.stopAll();
+        assertThat(chronograph.getTasks().get(0).getInvocations()).isEqualTo(2);
+    }
+}
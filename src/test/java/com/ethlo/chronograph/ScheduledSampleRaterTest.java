@@ -23,6 +23,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.math.BigInteger;
 import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 
@@ -43,4 +44,20 @@ class SampleRaterTest
         }
         assertThat(sum).isEqualTo(BigInteger.valueOf(1_999_999_000_000L));
     }
+
+    @Test
+    void closeStopsSampling() throws InterruptedException
+    {
+        final AtomicInteger emitted = new AtomicInteger();
+        final ScheduledSampleRater<Integer> rater = new ScheduledSampleRater<>(Duration.ofMillis(50), progress -> emitted.incrementAndGet());
+        rater.update(1);
+        rater.close();
+
+        Thread.sleep(150);
+        for (int i = 0; i < 1_000; i++)
+        {
+            rater.update(i);
+        }
+        assertThat(emitted.get()).isEqualTo(1);
+    }
 }
@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import com.ethlo.chronograph.output.table.TableOutputFormatter;
 
@@ -37,6 +38,8 @@ import com.ethlo.chronograph.CaptureConfig;
 import com.ethlo.chronograph.Chronograph;
 import com.ethlo.chronograph.ChronographData;
 import com.ethlo.chronograph.OutputConfig;
+import com.ethlo.chronograph.OverflowPolicy;
+import com.ethlo.chronograph.TaskInfo;
 
 class ChronographContextTest
 {
@@ -79,6 +82,15 @@ class ChronographContextTest
         assertThat(chronographContext.get()).isNotSameAs(instance);
     }
 
+    @Test
+    void testRemoveDeletesInstanceFromGetAll()
+    {
+        Chronograph instance = chronographContext.get();
+        assertThat(chronographContext.getAll()).containsExactly(instance);
+        chronographContext.remove();
+        assertThat(chronographContext.getAll()).isEmpty();
+    }
+
     @Test
     void testSetAndGetOutputConfig()
     {
@@ -116,6 +128,24 @@ class ChronographContextTest
         assertThat(allInstances).containsExactlyInAnyOrder(instance1, instance2[0]);
     }
 
+    @Test
+    void testInstanceOfEndedThreadIsDropped() throws InterruptedException
+    {
+        Thread thread = new Thread(() -> chronographContext.get().time("Task", () -> {}));
+        thread.start();
+        thread.join();
+        assertThat(chronographContext.getAll()).hasSize(1);
+
+        // The thread ended without calling remove()
+        thread = null;
+        for (int i = 0; i < 100 && !chronographContext.getAll().isEmpty(); i++)
+        {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(chronographContext.getAll()).isEmpty();
+    }
+
     @Test
     void testGetAllWithMultipleThreads()
     {
@@ -152,6 +182,68 @@ class ChronographContextTest
         System.out.println(new TableOutputFormatter().format(merged));
     }
 
+    @Test
+    void testReleaseFoldsIntoAggregate() throws InterruptedException
+    {
+        final int taskCount = 1_000;
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < taskCount; i++)
+        {
+            executorService.submit(chronographContext.wrap(() ->
+            {
+                final Chronograph chronograph = chronographContext.get();
+                chronograph.time("Task", () -> chronograph.time("SubTask", () -> chronograph.time("Leaf", () -> {})));
+            }));
+        }
+        executorService.shutdown();
+        assertThat(executorService.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(chronographContext.getAll()).isEmpty();
+        final ChronographData aggregate = chronographContext.getAggregate();
+        assertThat(aggregate.getRootTasks()).hasSize(1);
+        assertThat(aggregate.getTasks()).extracting(TaskInfo::getInvocations).containsExactly(1_000L, 1_000L, 1_000L);
+    }
+
+    @Test
+    void testAggregateIsNotChangedByLaterReleases() throws InterruptedException
+    {
+        final Runnable task = chronographContext.wrap(() -> chronographContext.get().time("Task", () -> {}));
+        task.run();
+        final ChronographData first = chronographContext.getAggregate();
+
+        final Thread thread = new Thread(task);
+        thread.start();
+        thread.join();
+        task.run();
+
+        assertThat(first.getTotalInvocations()).isEqualTo(1);
+        assertThat(chronographContext.getAggregate().getTotalInvocations()).isEqualTo(3);
+    }
+
+    @Test
+    void testReleaseOfOffHeapSamples() throws InterruptedException
+    {
+        chronographContext.setCaptureConfig(CaptureConfig.offHeap(65_536, OverflowPolicy.DISCARD));
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 20; i++)
+        {
+            executorService.submit(chronographContext.wrap(() ->
+            {
+                final Chronograph chronograph = chronographContext.get();
+                for (int j = 0; j < 1_000; j++)
+                {
+                    chronograph.time("Task", () -> {});
+                }
+            }));
+        }
+        executorService.shutdown();
+        assertThat(executorService.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+        final TaskInfo task = chronographContext.getAggregate().getRootTasks().get(0);
+        assertThat(task.getInvocations()).isEqualTo(20_000);
+        assertThat(task.getSampleSize()).isEqualTo(20_000);
+    }
+
     private void busy()
     {
         try
@@ -0,0 +1,118 @@
+package com.ethlo.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.ethlo.chronograph.internal.util.CompressedLongList;
+import com.ethlo.chronograph.internal.util.IndexedCollectionStatistics;
+
+class CompressedLongListTest
+{
+    @Test
+    void roundTrip()
+    {
+        final SplittableRandom random = new SplittableRandom(9);
+        for (int size : new int[]{0, 1, 127, 128, 129, 10_000})
+        {
+            final CompressedLongList list = new CompressedLongList();
+            final long[] expected = new long[size];
+            for (int i = 0; i < size; i++)
+            {
+                expected[i] = switch (i % 50)
+                {
+                    case 0 -> random.nextLong();
+                    case 1 -> i % 100 == 1 ? Long.MIN_VALUE : Long.MAX_VALUE;
+                    default -> 50_000 + random.nextInt(10_000);
+                };
+                list.add(expected[i]);
+            }
+
+            assertThat(list.size()).isEqualTo(size);
+            assertThat(list.longStream().toArray()).isEqualTo(expected);
+            assertThat(CompressedLongList.fromByteArray(list.toByteArray()).longStream().toArray()).isEqualTo(expected);
+            for (int i = 0; i < size; i += 37)
+            {
+                assertThat(list.getLong(i)).isEqualTo(expected[i]);
+            }
+
+            list.sort();
+            Arrays.sort(expected);
+            assertThat(list.longStream().toArray()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void concurrentRandomAccess()
+    {
+        final CompressedLongList list = new CompressedLongList();
+        for (int i = 0; i < 100_000; i++)
+        {
+            list.add(i);
+        }
+
+        // Readers on different threads move between blocks at the same time
+        final long mismatches = LongStream.range(0, 1_000_000).parallel()
+                .filter(i -> list.getLong((i * 7_919) % 100_000) != (i * 7_919) % 100_000)
+                .count();
+        assertThat(mismatches).isZero();
+    }
+
+    @Test
+    void setValue()
+    {
+        final CompressedLongList list = new CompressedLongList();
+        for (int i = 0; i < 300; i++)
+        {
+            list.add(i);
+        }
+        list.setLong(5, 1_000_000);
+        list.setLong(299, -1);
+        assertThat(list.getLong(5)).isEqualTo(1_000_000);
+        assertThat(list.getLong(6)).isEqualTo(6);
+        assertThat(list.getLong(299)).isEqualTo(-1);
+    }
+
+    @Test
+    void compressesDurations()
+    {
+        final SplittableRandom random = new SplittableRandom(1);
+        final CompressedLongList list = new CompressedLongList();
+        final int size = 100_000;
+        for (int i = 0; i < size; i++)
+        {
+            list.add(20_000 + random.nextLong(100_000));
+        }
+        assertThat(list.getCompressedBytes()).isLessThan(size * (long) Long.BYTES / 3);
+
+        final IndexedCollectionStatistics statistics = new IndexedCollectionStatistics(list);
+        assertThat(statistics.getPercentile(99)).isBetween(115_000L, 120_000L);
+
+        list.sort();
+        assertThat(list.getCompressedBytes()).isLessThan(size * (long) Long.BYTES / 6);
+    }
+}
@@ -0,0 +1,144 @@
+package com.ethlo.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.ethlo.chronograph.internal.util.IndexedCollectionStatistics;
+import com.ethlo.chronograph.internal.util.LogLinearHistogram;
+import com.ethlo.chronograph.internal.util.LongList;
+
+class LogLinearHistogramTest
+{
+    @Test
+    void exactForSmallValues()
+    {
+        final LogLinearHistogram histogram = new LogLinearHistogram(0.01);
+        for (int i = 1; i <= 100; i++)
+        {
+            histogram.record(i);
+        }
+        assertThat(histogram.size()).isEqualTo(100);
+        assertThat(histogram.sum()).isEqualTo(5050);
+        assertThat(histogram.getMin()).isEqualTo(1);
+        assertThat(histogram.getMax()).isEqualTo(100);
+        assertThat(histogram.getPercentile(90)).isEqualTo(90);
+    }
+
+    @Test
+    void percentilesWithinRelativeError()
+    {
+        final double relativeError = 0.01;
+        final LogLinearHistogram histogram = new LogLinearHistogram(relativeError);
+        final LongList raw = new LongList();
+        final Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++)
+        {
+            final long value = (long) Math.exp(random.nextGaussian() * 2 + 12);
+            histogram.record(value);
+            raw.add(value);
+        }
+
+        final IndexedCollectionStatistics exact = new IndexedCollectionStatistics(raw);
+        for (double percentile : new double[]{1, 25, 50, 75, 90, 99, 99.9})
+        {
+            final long expected = exact.getPercentile(percentile);
+            assertThat(histogram.getPercentile(percentile)).isCloseTo(expected, within((long) (expected * relativeError) + 1));
+        }
+        assertThat(histogram.getMin()).isEqualTo(exact.getMin());
+        assertThat(histogram.getMax()).isEqualTo(exact.getMax());
+        assertThat(histogram.getAverage()).isEqualTo(exact.getAverage());
+    }
+
+    @Test
+    void negativeValuesAreClamped()
+    {
+        final LogLinearHistogram histogram = new LogLinearHistogram(0.01);
+        histogram.record(-50);
+        histogram.record(100);
+        assertThat(histogram.size()).isEqualTo(2);
+        assertThat(histogram.sum()).isEqualTo(100);
+        assertThat(histogram.getMin()).isZero();
+        assertThat(histogram.getMax()).isEqualTo(100);
+        assertThat(histogram.getPercentile(50)).isZero();
+    }
+
+    @Test
+    void merge()
+    {
+        final LogLinearHistogram a = new LogLinearHistogram(0.05);
+        final LogLinearHistogram b = new LogLinearHistogram(0.05);
+        a.record(10);
+        b.record(1_000_000);
+        a.merge(b);
+        assertThat(a.size()).isEqualTo(2);
+        assertThat(a.getMin()).isEqualTo(10);
+        assertThat(a.getMax()).isEqualTo(1_000_000);
+    }
+
+    @Test
+    void mergeDifferentPrecision()
+    {
+        final LogLinearHistogram a = new LogLinearHistogram(0.05);
+        final LogLinearHistogram b = new LogLinearHistogram(0.001);
+        assertThrows(IllegalArgumentException.class, () -> a.merge(b));
+    }
+
+    @Test
+    void mergeAfterChangingPrecision()
+    {
+        final LogLinearHistogram a = new LogLinearHistogram(0.05);
+        final LogLinearHistogram b = new LogLinearHistogram(0.001);
+        for (int i = 1; i <= 1000; i++)
+        {
+            a.record(i * 1000L);
+            b.record(i * 1000L);
+        }
+
+        a.merge(b.withRelativeError(0.05));
+        assertThat(a.size()).isEqualTo(2000);
+        assertThat(a.getMin()).isEqualTo(1000);
+        assertThat(a.getMax()).isEqualTo(1_000_000);
+        assertThat(a.getMedian()).isCloseTo(500_000L, within(25_000L));
+        assertThat(b.size()).isEqualTo(1000);
+    }
+
+    @Test
+    void empty()
+    {
+        final LogLinearHistogram histogram = new LogLinearHistogram(0.01);
+        assertThat(histogram.getPercentile(50)).isNull();
+        assertThat(histogram.getStandardDeviation()).isNull();
+    }
+
+    @Test
+    void invalidRelativeError()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new LogLinearHistogram(0));
+        assertThrows(IllegalArgumentException.class, () -> new LogLinearHistogram(0.75));
+    }
+}
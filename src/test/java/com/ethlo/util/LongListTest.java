@@ -23,8 +23,11 @@ package com.ethlo.util;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.math.BigInteger;
+
 import org.junit.jupiter.api.Test;
 
+import com.ethlo.chronograph.internal.util.BlockPool;
 import com.ethlo.chronograph.internal.util.IndexedCollectionStatistics;
 import com.ethlo.chronograph.internal.util.LongList;
 
@@ -63,6 +66,21 @@ public class LongListTest
         assertThat(new IndexedCollectionStatistics(l).getAverage()).isEqualTo(Integer.MAX_VALUE);
     }
 
+    @Test
+    void averageCarriesRemainders()
+    {
+        final LongList l = new LongList();
+        BigInteger sum = BigInteger.ZERO;
+        for (int i = 1; i <= 2_600_000; i++)
+        {
+            final long value = Long.MAX_VALUE - i * 7_919L;
+            l.add(value);
+            sum = sum.add(BigInteger.valueOf(value));
+        }
+        final long expected = sum.divide(BigInteger.valueOf(l.size())).longValueExact();
+        assertThat(new IndexedCollectionStatistics(l).getAverage()).isEqualTo(expected);
+    }
+
     @Test
     void sortUneven()
     {
@@ -164,4 +182,96 @@ public class LongListTest
         final LongList l = createList(10, true);
         assertThat(l.size()).isEqualTo(10);
     }
+
+    @Test
+    void getLong()
+    {
+        final LongList l = createList(2_500, true);
+        assertThat(l.getLong(0)).isEqualTo(2_499L);
+        assertThat(l.getLong(1_000)).isEqualTo(1_499L);
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> l.getLong(2_500));
+    }
+
+    @Test
+    void longStream()
+    {
+        final LongList l = createList(2_500, true);
+        assertThat(l.longStream().sum()).isEqualTo(l.sum());
+        assertThat(l.longStream().count()).isEqualTo(2_500L);
+    }
+
+    @Test
+    void forEachLong()
+    {
+        final LongList l = createList(2_500, true);
+        final long[] expected = {2_499};
+        l.forEachLong(value -> assertThat(value).isEqualTo(expected[0]--));
+        assertThat(expected[0]).isEqualTo(-1L);
+    }
+
+    @Test
+    void copyToAcrossBlocks()
+    {
+        final LongList l = createList(2_500, true);
+        final long[] target = new long[1_200];
+        l.copyTo(target, 900, target.length);
+        assertThat(target[0]).isEqualTo(1_599L);
+        assertThat(target[1_199]).isEqualTo(400L);
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> l.copyTo(target, 2_000, 1_000));
+    }
+
+    @Test
+    void parallelLongStream()
+    {
+        final LongList l = createList(250_001, false);
+        assertThat(l.longStream().parallel().sum()).isEqualTo(l.sum());
+        assertThat(l.longStream().parallel().count()).isEqualTo(250_001L);
+        assertThat(l.longStream().parallel().toArray()).containsExactly(l.longStream().toArray());
+    }
+
+    @Test
+    void averageWithoutOverflow()
+    {
+        final LongList l = new LongList();
+        for (int i = 0; i < 200_000; i++)
+        {
+            l.add(Long.MAX_VALUE - i);
+        }
+        assertThat(new IndexedCollectionStatistics(l).getAverage()).isEqualTo(Long.MAX_VALUE - 100_000);
+    }
+
+    @Test
+    void blocksAreReturnedToPool()
+    {
+        final BlockPool pool = new BlockPool(BlockPool.DEFAULT_MAX_BYTES);
+        final LongList first = new LongList(pool);
+        first.add(1);
+        first.release();
+        assertThat(first.isEmpty()).isTrue();
+        assertThat(pool.getPooledBytes()).isEqualTo(LongList.FIRST_BLOCK_SIZE * Long.BYTES);
+
+        final LongList second = new LongList(pool);
+        for (int i = 0; i < 5_000; i++)
+        {
+            second.add(i);
+        }
+        assertThat(pool.getPooledBytes()).isZero();
+        assertThat(second.getLong(4_999)).isEqualTo(4_999);
+        assertThat(second.longStream().sum()).isEqualTo(second.sum());
+    }
+
+    @Test
+    void bulkAddAll()
+    {
+        final LongList source = createList(5_001, true);
+        final LongList target = new LongList();
+        target.add(-1);
+        target.addAll(source);
+        target.addAll(new long[]{7, 8, 9}, 1, 2);
+        assertThat(target.size()).isEqualTo(5_004);
+        assertThat(target.getLong(0)).isEqualTo(-1);
+        assertThat(target.getLong(5_001)).isEqualTo(source.getLong(5_000));
+        assertThat(target.getLong(5_003)).isEqualTo(9);
+        assertThat(target.sum()).isEqualTo(source.sum() - 1 + 8 + 9);
+    }
 }
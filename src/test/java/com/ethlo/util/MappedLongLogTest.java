@@ -0,0 +1,125 @@
+package com.ethlo.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ethlo.chronograph.CaptureConfig;
+import com.ethlo.chronograph.Chronograph;
+import com.ethlo.chronograph.TaskInfo;
+import com.ethlo.chronograph.internal.util.LongList;
+import com.ethlo.chronograph.internal.util.MappedLongLog;
+
+class MappedLongLogTest
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsValuesInOrder() throws IOException
+    {
+        final Path file = directory.resolve("test.samples");
+        final LongList expected = new LongList();
+        try (MappedLongLog log = new MappedLongLog(file))
+        {
+            final SplittableRandom random = new SplittableRandom(11);
+            for (long value : new long[]{0, 1, -1, 127, 128, Long.MAX_VALUE, Long.MIN_VALUE})
+            {
+                log.add(value);
+                expected.add(value);
+            }
+            for (int i = 0; i < 100_000; i++)
+            {
+                final long value = random.nextLong(1, 1L << 40);
+                log.add(value);
+                expected.add(value);
+            }
+
+            final LongList actual = new LongList();
+            log.forEach(actual::add);
+            assertThat(log.size()).isEqualTo(expected.size());
+            assertThat(actual.longStream().toArray()).isEqualTo(expected.longStream().toArray());
+            assertThat(log.getByteSize()).isLessThan(expected.size() * (long) Long.BYTES);
+        }
+        assertThat(Files.size(file)).isLessThan(MappedLongLog.SEGMENT_SIZE);
+    }
+
+    @Test
+    void fileIsCreatedWithFirstValueAndReadableAfterClose() throws IOException
+    {
+        final MappedLongLog log = new MappedLongLog(directory, "lazy-");
+        assertThat(log.getFile()).isNull();
+        log.close();
+
+        for (int i = 0; i < 100_000; i++)
+        {
+            log.add(i);
+        }
+        assertThat(Files.size(log.getFile())).isLessThan(MappedLongLog.SEGMENT_SIZE);
+
+        log.close();
+        assertThat(Files.size(log.getFile())).isEqualTo(log.getByteSize());
+        log.add(100_000);
+
+        final LongList actual = new LongList();
+        log.forEach(actual::add);
+        assertThat(actual.size()).isEqualTo(100_001);
+        assertThat(actual.getLong(100_000)).isEqualTo(100_000);
+
+        log.delete();
+        assertThat(log.getFile()).doesNotExist();
+    }
+
+    @Test
+    void chronographSpillsToDisk() throws IOException
+    {
+        final Chronograph chronograph = Chronograph.create(CaptureConfig.spill(directory));
+        for (int i = 0; i < 10_000; i++)
+        {
+            chronograph.start("task");
+            chronograph.stop();
+        }
+
+        chronograph.close();
+        final TaskInfo task = chronograph.getTask("task");
+        assertThat(task.getInvocations()).isEqualTo(10_000);
+        assertThat(task.getSampleSize()).isEqualTo(10_000);
+        assertThat(task.getStatistics().getPercentile(90)).isGreaterThanOrEqualTo(task.getStatistics().getMedian());
+        try (var files = Files.list(directory))
+        {
+            assertThat(files.count()).isEqualTo(1);
+        }
+
+        chronograph.resetAll();
+        try (var files = Files.list(directory))
+        {
+            assertThat(files.count()).isZero();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.ethlo.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import com.ethlo.chronograph.CaptureConfig;
+import com.ethlo.chronograph.Chronograph;
+import com.ethlo.chronograph.OverflowPolicy;
+import com.ethlo.chronograph.TaskInfo;
+import com.ethlo.chronograph.internal.util.MemoryBudget;
+import com.ethlo.chronograph.internal.util.OffHeapLongList;
+
+class OffHeapLongListTest
+{
+    private static final long CHUNK_BYTES = (long) OffHeapLongList.CHUNK_SIZE * Long.BYTES;
+
+    @Test
+    void storesAcrossChunks()
+    {
+        final MemoryBudget budget = new MemoryBudget(CHUNK_BYTES * 4);
+        final OffHeapLongList list = new OffHeapLongList(budget, OverflowPolicy.FAIL);
+        final SplittableRandom random = new SplittableRandom(3);
+        final long[] expected = new long[OffHeapLongList.CHUNK_SIZE * 3 + 17];
+        for (int i = 0; i < expected.length; i++)
+        {
+            expected[i] = random.nextLong(1_000_000);
+            list.add(expected[i]);
+        }
+
+        assertThat(list.size()).isEqualTo(expected.length);
+        assertThat(budget.getReservedBytes()).isEqualTo(CHUNK_BYTES * 4);
+        assertThat(list.longStream().toArray()).isEqualTo(expected);
+
+        final long[] copy = new long[100];
+        list.copyTo(copy, OffHeapLongList.CHUNK_SIZE - 50, 100);
+        assertThat(copy).isEqualTo(Arrays.copyOfRange(expected, OffHeapLongList.CHUNK_SIZE - 50, OffHeapLongList.CHUNK_SIZE + 50));
+
+        list.sort();
+        Arrays.sort(expected);
+        assertThat(list.isSorted()).isTrue();
+        assertThat(list.longStream().toArray()).isEqualTo(expected);
+
+        list.release();
+        assertThat(list.isEmpty()).isTrue();
+        assertThat(budget.getReservedBytes()).isZero();
+    }
+
+    @Test
+    void discardWhenFull()
+    {
+        final OffHeapLongList list = new OffHeapLongList(new MemoryBudget(CHUNK_BYTES), OverflowPolicy.DISCARD);
+        for (int i = 0; i < OffHeapLongList.CHUNK_SIZE + 10; i++)
+        {
+            list.add(i);
+        }
+        assertThat(list.size()).isEqualTo(OffHeapLongList.CHUNK_SIZE);
+        assertThat(list.getDiscarded()).isEqualTo(10);
+        assertThat(list.getLong(OffHeapLongList.CHUNK_SIZE - 1)).isEqualTo(OffHeapLongList.CHUNK_SIZE - 1);
+    }
+
+    @Test
+    void overwriteWhenFull()
+    {
+        final OffHeapLongList list = new OffHeapLongList(new MemoryBudget(CHUNK_BYTES), OverflowPolicy.OVERWRITE);
+        for (int i = 0; i < OffHeapLongList.CHUNK_SIZE + 2; i++)
+        {
+            list.add(i);
+        }
+        assertThat(list.size()).isEqualTo(OffHeapLongList.CHUNK_SIZE);
+        assertThat(list.getLong(0)).isEqualTo(OffHeapLongList.CHUNK_SIZE);
+        assertThat(list.getLong(1)).isEqualTo(OffHeapLongList.CHUNK_SIZE + 1);
+        assertThat(list.getLong(2)).isEqualTo(2);
+    }
+
+    @Test
+    void failWhenFull()
+    {
+        final OffHeapLongList list = new OffHeapLongList(new MemoryBudget(CHUNK_BYTES), OverflowPolicy.FAIL);
+        for (int i = 0; i < OffHeapLongList.CHUNK_SIZE; i++)
+        {
+            list.add(i);
+        }
+        assertThatThrownBy(() -> list.add(1)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void chronographWithOffHeapStorage()
+    {
+        final CaptureConfig config = CaptureConfig.offHeap(CHUNK_BYTES, OverflowPolicy.DISCARD);
+        final Chronograph chronograph = Chronograph.create(config);
+        final int invocations = OffHeapLongList.CHUNK_SIZE + 100;
+        for (int i = 0; i < invocations; i++)
+        {
+            chronograph.start("task");
+            chronograph.stop();
+        }
+
+        final TaskInfo task = chronograph.getTask("task");
+        assertThat(task.getInvocations()).isEqualTo(invocations);
+        assertThat(task.getSampleSize()).isEqualTo(OffHeapLongList.CHUNK_SIZE);
+        assertThat(task.getStatistics().getMedian()).isNotNull();
+
+        chronograph.resetAll();
+        chronograph.start("task");
+        chronograph.stop();
+        assertThat(chronograph.getTask("task").getSampleSize()).isEqualTo(1);
+    }
+
+    @Test
+    void offHeapIsExclusive()
+    {
+        assertThatThrownBy(() -> CaptureConfig.builder().histogram(0.01).offHeap(CHUNK_BYTES, OverflowPolicy.DISCARD).build())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CaptureConfig.offHeap(1024, OverflowPolicy.DISCARD))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
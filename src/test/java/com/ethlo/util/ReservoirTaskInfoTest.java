@@ -0,0 +1,129 @@
+package com.ethlo.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.ethlo.chronograph.CaptureConfig;
+import com.ethlo.chronograph.Chronograph;
+import com.ethlo.chronograph.TaskInfo;
+import com.ethlo.chronograph.internal.MutableTaskInfo;
+import com.ethlo.chronograph.internal.ReservoirTaskInfo;
+import com.ethlo.chronograph.statistics.PerformanceStatistics;
+
+class ReservoirTaskInfoTest
+{
+    @Test
+    void uniformSample()
+    {
+        final ReservoirTaskInfo taskInfo = new ReservoirTaskInfo("task", null, 10_000);
+        for (long i = 0; i < 1_000_000; i++)
+        {
+            taskInfo.addMeasurement(i);
+        }
+
+        assertThat(taskInfo.getSampleSize()).isEqualTo(10_000);
+        assertThat(taskInfo.getInvocations()).isEqualTo(1_000_000);
+
+        final PerformanceStatistics statistics = taskInfo.getStatistics();
+        assertThat(statistics.getAverage()).isEqualTo(Duration.ofNanos(500_000));
+        assertThat(statistics.getMedian().toNanos()).isBetween(450_000L, 550_000L);
+        assertThat(statistics.getPercentile(90).toNanos()).isBetween(850_000L, 950_000L);
+    }
+
+    @Test
+    void mergeIsWeightedByInvocations()
+    {
+        final ReservoirTaskInfo a = new ReservoirTaskInfo("task", null, 10_000);
+        final ReservoirTaskInfo b = new ReservoirTaskInfo("task", null, 10_000);
+        for (int i = 0; i < 100_000; i++)
+        {
+            a.addMeasurement(1);
+        }
+        for (int i = 0; i < 300_000; i++)
+        {
+            b.addMeasurement(2);
+        }
+
+        a.merge(b);
+        assertThat(a.getInvocations()).isEqualTo(400_000);
+        assertThat(a.getSampleSize()).isEqualTo(10_000);
+        assertThat(a.getStatistics().getPercentile(20)).isEqualTo(Duration.ofNanos(1));
+        assertThat(a.getStatistics().getPercentile(30)).isEqualTo(Duration.ofNanos(2));
+    }
+
+    @Test
+    void recordingAfterMergeKeepsSampleUniform()
+    {
+        final ReservoirTaskInfo a = new ReservoirTaskInfo("task", null, 10_000);
+        final ReservoirTaskInfo b = new ReservoirTaskInfo("task", null, 10_000);
+        for (int i = 0; i < 100_000; i++)
+        {
+            a.addMeasurement(1);
+            b.addMeasurement(1);
+        }
+        a.merge(b);
+        for (int i = 0; i < 200_000; i++)
+        {
+            a.addMeasurement(2);
+        }
+
+        // Half of the invocations were recorded after the merge
+        assertThat(a.getStatistics().getPercentile(40)).isEqualTo(Duration.ofNanos(1));
+        assertThat(a.getStatistics().getPercentile(60)).isEqualTo(Duration.ofNanos(2));
+    }
+
+    @Test
+    void mergeOfRateLimitedTaskCountsAllInvocations()
+    {
+        final Chronograph chronograph = Chronograph.create(CaptureConfig.minInterval(Duration.ofSeconds(1)));
+        for (int i = 0; i < 1_000; i++)
+        {
+            chronograph.time("task", () -> {});
+        }
+        final TaskInfo rateLimited = chronograph.getTask("task");
+        assertThat(rateLimited.getSampleSize()).isLessThan(1_000);
+
+        final ReservoirTaskInfo reservoir = new ReservoirTaskInfo("task", null, 100);
+        reservoir.addMeasurement(1);
+        reservoir.merge((MutableTaskInfo) rateLimited);
+        assertThat(reservoir.getInvocations()).isEqualTo(1_001);
+        assertThat(reservoir.getTime()).isGreaterThanOrEqualTo(rateLimited.getTime());
+    }
+
+    @Test
+    void configuredThroughCaptureConfig()
+    {
+        final Chronograph chronograph = Chronograph.create(CaptureConfig.reservoir(100));
+        for (int i = 0; i < 1_000; i++)
+        {
+            chronograph.time("task", () -> {});
+        }
+
+        final TaskInfo task = chronograph.getTask("task");
+        assertThat(task.getSampleSize()).isEqualTo(100);
+        assertThat(task.getInvocations()).isEqualTo(1_000);
+    }
+}
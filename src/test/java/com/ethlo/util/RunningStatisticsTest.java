@@ -0,0 +1,97 @@
+package com.ethlo.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import com.ethlo.chronograph.internal.MutableTaskInfo;
+import com.ethlo.chronograph.internal.util.IndexedCollectionStatistics;
+import com.ethlo.chronograph.internal.util.LongList;
+import com.ethlo.chronograph.internal.util.RunningStatistics;
+import com.ethlo.chronograph.statistics.PerformanceStatistics;
+
+class RunningStatisticsTest
+{
+    @Test
+    void matchesExactStatistics()
+    {
+        final SplittableRandom random = new SplittableRandom(7);
+        final RunningStatistics running = new RunningStatistics();
+        final LongList list = new LongList();
+        for (int i = 0; i < 100_000; i++)
+        {
+            final long value = random.nextLong(1_000, 10_000_000);
+            running.record(value);
+            list.add(value);
+        }
+
+        final IndexedCollectionStatistics exact = new IndexedCollectionStatistics(list);
+        assertThat(running.getCount()).isEqualTo(100_000);
+        assertThat(running.getSum()).isEqualTo(exact.sum());
+        assertThat(running.getMin()).isEqualTo(exact.getMin());
+        assertThat(running.getMax()).isEqualTo(exact.getMax());
+        assertThat(running.getStandardDeviation()).isCloseTo(exact.getStandardDeviation(), within(1D));
+    }
+
+    @Test
+    void mergeEqualsRecordingAll()
+    {
+        final RunningStatistics all = new RunningStatistics();
+        final RunningStatistics first = new RunningStatistics();
+        final RunningStatistics second = new RunningStatistics();
+        for (int i = 0; i < 1_000; i++)
+        {
+            all.record(i);
+            (i < 300 ? first : second).record(i);
+        }
+
+        first.merge(second);
+        assertThat(first.getCount()).isEqualTo(all.getCount());
+        assertThat(first.getSum()).isEqualTo(all.getSum());
+        assertThat(first.getMin()).isZero();
+        assertThat(first.getMax()).isEqualTo(999);
+        assertThat(first.getMean()).isCloseTo(all.getMean(), within(1e-9));
+        assertThat(first.getVariance()).isCloseTo(all.getVariance(), within(1e-6));
+    }
+
+    @Test
+    void statisticsAreCachedUntilModified()
+    {
+        final MutableTaskInfo task = new MutableTaskInfo("task", null);
+        task.addMeasurement(300);
+        task.addMeasurement(100);
+
+        final PerformanceStatistics statistics = task.getStatistics();
+        assertThat(task.getStatistics()).isSameAs(statistics);
+        assertThat(statistics.getMedian().toNanos()).isEqualTo(200);
+
+        task.addMeasurement(200);
+        assertThat(task.getStatistics()).isNotSameAs(statistics);
+        assertThat(task.getStatistics().getMedian().toNanos()).isEqualTo(200);
+        assertThat(task.getStatistics().getMin().toNanos()).isEqualTo(100);
+        assertThat(task.getTime().toNanos()).isEqualTo(600);
+    }
+}
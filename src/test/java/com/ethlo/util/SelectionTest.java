@@ -0,0 +1,108 @@
+package com.ethlo.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import com.ethlo.chronograph.internal.util.IndexedCollectionStatistics;
+import com.ethlo.chronograph.internal.util.LongList;
+import com.ethlo.chronograph.internal.util.Selection;
+
+class SelectionTest
+{
+    @Test
+    void selectsSameValuesAsSorting()
+    {
+        final SplittableRandom random = new SplittableRandom(3);
+        for (int round = 0; round < 500; round++)
+        {
+            final int size = 1 + random.nextInt(2_000);
+            final long[] values = new long[size];
+            for (int i = 0; i < size; i++)
+            {
+                // Alternate between distinct values, many duplicates and already sorted input
+                values[i] = switch (round % 3)
+                {
+                    case 0 -> random.nextLong();
+                    case 1 -> random.nextInt(5);
+                    default -> i;
+                };
+            }
+            final long[] sorted = values.clone();
+            Arrays.sort(sorted);
+
+            final int[] ranks = {random.nextInt(size), random.nextInt(size), 0, size - 1};
+            final long[] selected = Selection.select(values.clone(), ranks);
+            for (int i = 0; i < ranks.length; i++)
+            {
+                assertThat(selected[i]).isEqualTo(sorted[ranks[i]]);
+            }
+        }
+    }
+
+    @Test
+    void radixSelectsSameValuesAsSorting()
+    {
+        final SplittableRandom random = new SplittableRandom(5);
+        for (int round = 0; round < 30; round++)
+        {
+            final int size = 1 + random.nextInt(5_000);
+            final LongList list = new LongList();
+            final long[] sorted = new long[size];
+            for (int i = 0; i < size; i++)
+            {
+                sorted[i] = round % 2 == 0 ? random.nextLong() : random.nextInt(5) - 2;
+                list.add(sorted[i]);
+            }
+            Arrays.sort(sorted);
+
+            final long[] ranks = {random.nextInt(size), random.nextInt(size), 0, size - 1};
+            final long[] selected = Selection.select(list, ranks);
+            for (int i = 0; i < ranks.length; i++)
+            {
+                assertThat(selected[i]).isEqualTo(sorted[(int) ranks[i]]);
+            }
+        }
+    }
+
+    @Test
+    void percentilesLeaveSamplesUnsorted()
+    {
+        final LongList list = new LongList();
+        for (long i = 1000; i > 0; i--)
+        {
+            list.add(i);
+        }
+
+        final IndexedCollectionStatistics statistics = new IndexedCollectionStatistics(list);
+        assertThat(statistics.getPercentiles(50, 90, 99)).containsExactly(500, 900, 990);
+        assertThat(statistics.getMedian()).isEqualTo(500);
+        assertThat(statistics.getMin()).isEqualTo(1);
+        assertThat(statistics.getMax()).isEqualTo(1000);
+        assertThat(list.isSorted()).isFalse();
+        assertThat(list.getLong(0)).isEqualTo(1000);
+    }
+}
@@ -0,0 +1,114 @@
+package com.ethlo.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.ethlo.chronograph.CaptureConfig;
+import com.ethlo.chronograph.Chronograph;
+import com.ethlo.chronograph.internal.util.LogLinearHistogram;
+import com.ethlo.chronograph.internal.util.SlidingWindowHistogram;
+
+class SlidingWindowHistogramTest
+{
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void windowCoversRecentSlots()
+    {
+        final SlidingWindowHistogram window = new SlidingWindowHistogram(0.01, Duration.ofSeconds(1), 60);
+        for (int second = 0; second < 60; second++)
+        {
+            window.record(second, second * SECOND);
+        }
+
+        final long now = 59 * SECOND + SECOND / 2;
+        assertThat(window.getWindow(Duration.ofSeconds(1), now).size()).isEqualTo(1);
+        final LogLinearHistogram last10 = window.getWindow(Duration.ofSeconds(10), now);
+        assertThat(last10.size()).isEqualTo(10);
+        assertThat(last10.getMin()).isEqualTo(50);
+        assertThat(window.getWindow(Duration.ofSeconds(60), now).size()).isEqualTo(60);
+    }
+
+    @Test
+    void oldSlotsAreReused()
+    {
+        final SlidingWindowHistogram window = new SlidingWindowHistogram(0.01, Duration.ofSeconds(1), 10);
+        window.record(1, 0);
+        window.record(2, 10 * SECOND);
+
+        final LogLinearHistogram all = window.getWindow(Duration.ofSeconds(10), 10 * SECOND);
+        assertThat(all.size()).isEqualTo(1);
+        assertThat(all.getMax()).isEqualTo(2);
+
+        // Older than the span of the ring, so dropped
+        window.record(3, 0);
+        assertThat(window.getWindow(Duration.ofSeconds(10), 10 * SECOND).size()).isEqualTo(1);
+        assertThat(window.getWindow(Duration.ofSeconds(1), 30 * SECOND).isEmpty()).isTrue();
+    }
+
+    @Test
+    void mergeMatchesSlotsByTime()
+    {
+        final SlidingWindowHistogram a = new SlidingWindowHistogram(0.01, Duration.ofSeconds(1), 10);
+        final SlidingWindowHistogram b = new SlidingWindowHistogram(0.05, Duration.ofSeconds(1), 10);
+        a.record(100, 5 * SECOND);
+        b.record(200, 5 * SECOND);
+        b.record(300, 9 * SECOND);
+
+        a.merge(b);
+        assertThat(a.getWindow(Duration.ofSeconds(1), 5 * SECOND).size()).isEqualTo(2);
+        assertThat(a.getWindow(Duration.ofSeconds(5), 9 * SECOND).size()).isEqualTo(3);
+    }
+
+    @Test
+    void windowLongerThanSpan()
+    {
+        final SlidingWindowHistogram window = new SlidingWindowHistogram(0.01, Duration.ofSeconds(1), 10);
+        assertThrows(IllegalArgumentException.class, () -> window.getWindow(Duration.ofSeconds(11), 0));
+    }
+
+    @Test
+    void windowedTasks()
+    {
+        final Chronograph chronograph = Chronograph.create(CaptureConfig.window(Duration.ofMinutes(1), 15));
+        for (int i = 0; i < 100; i++)
+        {
+            chronograph.start("task");
+            chronograph.stop();
+        }
+
+        assertThat(chronograph.getTask("task").getStatistics(Duration.ofMinutes(15)).getTotalInvocations()).isEqualTo(100);
+        assertThat(chronograph.getTaskData(Duration.ofMinutes(5)).getTotalInvocations()).isEqualTo(100);
+        assertThat(chronograph.getTask("task").getInvocations()).isEqualTo(100);
+
+        final Chronograph plain = Chronograph.create();
+        plain.start("task");
+        plain.stop();
+        assertThrows(UnsupportedOperationException.class, () -> plain.getTask("task").getStatistics(Duration.ofMinutes(1)));
+    }
+}
@@ -0,0 +1,60 @@
+package com.ethlo.util;
+
+/*-
+ * #%L
+ * Chronograph
+ * %%
+ * Copyright (C) 2019 - 2025 Morten Haraldsen (ethlo)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.ethlo.chronograph.internal.util.StripedHistogram;
+
+class StripedHistogramTest
+{
+    @Test
+    void stripesOfEndedThreadsAreDropped() throws InterruptedException
+    {
+        final StripedHistogram histogram = new StripedHistogram(0.01);
+        final StripedHistogram.Stripe own = histogram.newStripe();
+        own.record(1);
+
+        for (int i = 0; i < 1_000; i++)
+        {
+            final Thread thread = new Thread(() ->
+            {
+                final StripedHistogram.Stripe stripe = histogram.newStripe();
+                stripe.record(10);
+                stripe.record(20);
+            });
+            thread.start();
+            thread.join();
+        }
+        // Only dropped by readers
+        assertThat(histogram.getStripeCount()).isEqualTo(1_001);
+
+        histogram.drain();
+        assertThat(histogram.getStripeCount()).isEqualTo(1);
+        assertThat(histogram.snapshot().size()).isEqualTo(2_001);
+
+        own.record(1);
+        assertThat(histogram.snapshot().size()).isEqualTo(2_002);
+    }
+}